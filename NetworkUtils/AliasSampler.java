@@ -0,0 +1,126 @@
+package NetworkUtils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleFunction;
+import java.util.function.IntSupplier;
+import java.util.random.RandomGenerator;
+
+/**     Walker alias table for drawing values 1..n with fixed weights in constant time. Tables are
+ *  built once and never modified, so a sampler can be shared between threads; each draw uses the
+ *  caller's generator (ThreadLocalRandom by default).
+ */
+
+public class AliasSampler implements IntSupplier {
+
+    //Column i keeps value i + 1 with probability probability[i], otherwise gives alias[i] + 1
+    private final double[] probability;
+    private final int[] alias;
+
+    //weights[i] is the relative weight of value i + 1
+    public AliasSampler(double[] weights) {
+        int n = weights.length;
+
+        if (n == 0) {
+            throw new IllegalArgumentException("Distribution has no values");
+        }
+
+        double total = 0;
+        for (double w : weights) {
+            if (!(w >= 0) || Double.isInfinite(w)) {
+                throw new IllegalArgumentException("Weights must be finite and non-negative");
+            }
+            total += w;
+        }
+
+        if (total <= 0) {
+            throw new IllegalArgumentException("Distribution has zero total weight");
+        }
+
+        probability = new double[n];
+        alias = new int[n];
+
+        //Columns below and above the average are kept as two stacks in one array
+        int[] work = new int[n];
+        int small = 0, large = n;
+
+        for (int i = 0; i < n; i++) {
+            probability[i] = weights[i] * n / total;
+
+            if (probability[i] < 1) {
+                work[small++] = i;
+            } else {
+                work[--large] = i;
+            }
+        }
+
+        while (small > 0 && large < n) {
+            int s = work[--small];
+            int l = work[large];
+
+            alias[s] = l;
+            probability[l] -= 1 - probability[s];
+
+            if (probability[l] < 1) {
+                large++;
+                work[small++] = l;
+            }
+        }
+
+        //Whatever is left is only off by rounding
+        while (small > 0) probability[work[--small]] = 1;
+        while (large < n) probability[work[large++]] = 1;
+    }
+
+    //Weights dist(1)..dist(cap)
+    public static AliasSampler of(DoubleFunction<Double> dist, int cap) {
+        double[] weights = new double[cap];
+
+        for (int i = 1; i <= cap; i++) {
+            weights[i - 1] = dist.apply(i);
+        }
+
+        return new AliasSampler(weights);
+    }
+
+    //Power law x^-s over 1..cap, normalisation does not matter to the table
+    public static AliasSampler powerLaw(double s, int cap) {
+        double[] weights = new double[cap];
+
+        for (int i = 1; i <= cap; i++) {
+            weights[i - 1] = Math.pow(i, -s);
+        }
+
+        return new AliasSampler(weights);
+    }
+
+    //Sampler over the steps of a cumulative distribution, as made by NetworkDistribution.distribution
+    public static AliasSampler fromCumulative(double[] cumulative) {
+        double[] weights = new double[cumulative.length];
+        double previous = 0;
+
+        for (int i = 0; i < cumulative.length; i++) {
+            weights[i] = cumulative[i] - previous;
+            previous = cumulative[i];
+        }
+
+        return new AliasSampler(weights);
+    }
+
+    @Override
+    public int getAsInt() {
+        return sample(ThreadLocalRandom.current());
+    }
+
+    //One uniform double picks both the column and the coin flip
+    public int sample(RandomGenerator rand) {
+        double u = rand.nextDouble() * probability.length;
+        int column = Math.min((int) u, probability.length - 1);
+
+        return (u - column < probability[column] ? column : alias[column]) + 1;
+    }
+
+    //Largest value that can be drawn
+    public int getCap() {
+        return probability.length;
+    }
+}
@@ -0,0 +1,156 @@
+package NetworkUtils;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**     Attractor reached from a state under a deterministic update. Found with Brent's cycle
+ *  detection, so only a constant number of packed states is held while searching. States are
+ *  compared by hash first and then word by word, so a hash collision never ends the search.
+ */
+
+public class Attractor {
+
+    //Number of steps before the trajectory enters the cycle
+    final int transientLength;
+
+    //Length of the cycle, 1 for a fixed point
+    final int period;
+
+    //Packed states of the cycle in order, starting with the first state reached
+    final long[][] states;
+
+    final int size;
+
+    Attractor(int transientLength, int period, long[][] states, int size) {
+        this.transientLength = transientLength;
+        this.period = period;
+        this.states = states;
+        this.size = size;
+    }
+
+    //Searches from the current state of any network that can be packed. Returns null if no cycle is
+    //closed within maxSteps updates. On success the network is left in the first attractor state
+    static Attractor find(int size, Runnable update, Consumer<long[]> pack, Consumer<long[]> unpack, int maxSteps) {
+        int words = words(size);
+
+        long[] start = new long[words];
+        long[] tortoise = new long[words];
+        long[] hare = new long[words];
+
+        pack.accept(start);
+        System.arraycopy(start, 0, tortoise, 0, words);
+        long tortoiseHash = hash(tortoise);
+
+        //Find the period: the hare is the network itself, the tortoise jumps to it at powers of two
+        int power = 1, period = 1, steps = 1;
+
+        update.run();
+        pack.accept(hare);
+
+        while (!equal(tortoise, tortoiseHash, hare)) {
+            if (steps >= maxSteps) {
+                return null;
+            }
+
+            if (power == period) {
+                System.arraycopy(hare, 0, tortoise, 0, words);
+                tortoiseHash = hash(tortoise);
+                power <<= 1;
+                period = 0;
+            }
+
+            update.run();
+            pack.accept(hare);
+            period++;
+            steps++;
+        }
+
+        //Find the transient: restart both from the initial state with the hare one period ahead
+        unpack.accept(start);
+        for (int i = 0; i < period; i++) {
+            update.run();
+        }
+        pack.accept(hare);
+
+        System.arraycopy(start, 0, tortoise, 0, words);
+        int transientLength = 0;
+
+        while (!equal(tortoise, hash(tortoise), hare)) {
+            unpack.accept(tortoise);
+            update.run();
+            pack.accept(tortoise);
+
+            unpack.accept(hare);
+            update.run();
+            pack.accept(hare);
+
+            transientLength++;
+        }
+
+        //Record the cycle, ending back on its first state
+        unpack.accept(tortoise);
+        long[][] states = new long[period][];
+
+        for (int i = 0; i < period; i++) {
+            states[i] = new long[words];
+            pack.accept(states[i]);
+            update.run();
+        }
+
+        return new Attractor(transientLength, period, states, size);
+    }
+
+    static int words(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    static long hash(long[] words) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (long w : words) {
+            h = (h ^ w) * 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 31;
+        }
+        return h;
+    }
+
+    private static boolean equal(long[] a, long hashA, long[] b) {
+        return hashA == hash(b) && Arrays.equals(a, b);
+    }
+
+    /* Getter Methods */
+
+    //-1 if unknown, as for attractors expanded from a reduced network
+    public int getTransient() {
+        return transientLength;
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+
+    public boolean isFixedPoint() {
+        return period == 1;
+    }
+
+    //State i of the cycle as an int array
+    public int[] getState(int i) {
+        int[] state = new int[size];
+        for (int j = 0; j < size; j++) {
+            state[j] = (int) (states[i][j >>> 6] >>> j & 1);
+        }
+        return state;
+    }
+
+    public int[][] getStates() {
+        int[][] cycle = new int[period][];
+        for (int i = 0; i < period; i++) {
+            cycle[i] = getState(i);
+        }
+        return cycle;
+    }
+
+    //Cycle states packed 64 nodes per word, node i is bit (i & 63) of word i >>> 6
+    public long[][] getPackedStates() {
+        return states;
+    }
+}
@@ -1,6 +1,9 @@
 package NetworkUtils;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadLocalRandom;
 
 //TODO: start splitting methods into separate classes
@@ -17,14 +20,46 @@ public class BooleanNetwork {
     //For use in generation methods.
     ThreadLocalRandom rand = ThreadLocalRandom.current();
 
-    //Iterates network using the default, synchronous update
+    //Pool for the parallel synchronous update, null unless enabled with setParallel
+    ForkJoinPool pool;
+    int chunkSize;
+    ParallelRange.Body setBuffers = (from, to) -> {
+        for (int i = from; i < to; i++) network[i].setBuffer();
+    };
+    ParallelRange.Body swapBuffers = (from, to) -> {
+        int ones = 0, flips = 0;
+
+        //Counted per chunk and added once, instead of every node touching the shared counters
+        for (int i = from; i < to; i++) {
+            Node n = network[i];
+            if (n.state != n.buffer) {
+                flips++;
+                if (n.buffer == 1) ones++;
+                else if (n.state == 1) ones--;
+            }
+            n.state = n.buffer;
+        }
+
+        this.observables.add(ones, flips);
+    };
+
+    //Iterates network using the default, synchronous update (parallel if enabled)
     public BooleanNetwork iterate(int iter) {
         for(int i = 0; i < iter; i++){
-            update();
+            defaultUpdate();
         }
         return this;
     }
 
+    //The synchronous update, run on the pool when setParallel is in effect
+    private void defaultUpdate() {
+        if (pool != null) {
+            parallelUpdate();
+        } else {
+            update();
+        }
+    }
+
     //Iterates network using any specified update method
     public BooleanNetwork iterate(Runnable updateMethod, int iterations) {
         for(int i = 0; i < iterations; i++){
@@ -33,56 +68,166 @@ public class BooleanNetwork {
         return this;
     }
 
-    //For use in update methods
-    ArrayList<Node>[] outputnodes;
-    Set<Node> update = new HashSet<>();
-    Set<Node> buffer = new HashSet<>();
+    //Iterates with the synchronous update (parallel if enabled), recording the state after every step
+    //(and the start state if nothing has been recorded yet)
+    public BooleanNetwork iterate(int iter, TrajectoryRecorder recorder) {
+        return iterate(this::defaultUpdate, iter, recorder);
+    }
+
+    public BooleanNetwork iterate(Runnable updateMethod, int iterations, TrajectoryRecorder recorder) {
+        try {
+            if (recorder.getFrames() == 0) {
+                recorder.record(this);
+            }
+
+            for (int i = 0; i < iterations; i++) {
+                updateMethod.run();
+                recorder.record(this);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    //Ones count, majority and flips, kept up to date by the nodes
+    Observables observables = new Observables(0);
+
+    //Binds fresh counters to the current nodes
+    private void attachObservables() {
+        observables = new Observables(size);
+
+        for (Node n : network) {
+            n.observables = observables;
+        }
+        observables.recount(network);
+    }
 
-    //Creates array to be used by cascade update -
+    public Observables getObservables() {
+        return observables;
+    }
+
+    //Opt-in instrumentation, null (the default) records nothing
+    NetworkMetrics metrics;
+
+    public BooleanNetwork setMetrics(NetworkMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public NetworkMetrics getMetrics() {
+        return metrics;
+    }
+
+    //For use in update methods, frontier of the cascade update and its next step
+    NodeSet update = new NodeSet();
+    NodeSet buffer = new NodeSet();
+
+    //Output (fan-out) index in CSR form: nodes with node i as input are outputs[outputOffsets[i]] .. outputs[outputOffsets[i+1]-1]
+    //Built lazily, cleared whenever the topology is replaced
+    int[] outputOffsets;
+    int[] outputs;
+
+    //Creates output index used by cascade update, call again if node neighbors were changed directly
     public BooleanNetwork initOutputNodes() {
-        outputnodes = new ArrayList[size];
+        long start = metrics != null ? System.nanoTime() : 0;
+
+        int[] offsets = new int[size + 1];
+        int[] last = new int[size];
+        Arrays.fill(last, -1);
+
+        //Count each (input, node) pair once, even if the node lists the input several times
+        for (Node k : network) {
+            for (Node n : k.getNeighbors()) {
+                if (last[n.getID()] != k.getID()) {
+                    last[n.getID()] = k.getID();
+                    offsets[n.getID() + 1]++;
+                }
+            }
+        }
+
         for (int i = 0; i < size; i++) {
-            outputnodes[i] = new ArrayList<>();
+            offsets[i + 1] += offsets[i];
         }
 
-        //Add nodes with inputs N to list
-        for (Node n : network) {
-            for (Node k : network) {
-                if (k.getNeighbors().contains(n)) {
-                    outputnodes[n.getID()].add(k);
+        int[] targets = new int[offsets[size]];
+        int[] fill = Arrays.copyOf(offsets, size);
+        Arrays.fill(last, -1);
+
+        for (Node k : network) {
+            for (Node n : k.getNeighbors()) {
+                if (last[n.getID()] != k.getID()) {
+                    last[n.getID()] = k.getID();
+                    targets[fill[n.getID()]++] = k.getID();
                 }
             }
         }
 
+        outputOffsets = offsets;
+        outputs = targets;
+
+        if (metrics != null) metrics.time("initOutputNodes", start);
         return this;
     }
 
+    //Rebinds the cascade sets to the current nodes
+    private void resetFrontier() {
+        update.setNodes(network);
+        buffer.setNodes(network);
+    }
+
+    private void ensureOutputNodes() {
+        if (outputOffsets == null) {
+            initOutputNodes();
+        }
+    }
+
+    //Nodes that have node i as an input, in ascending order
+    public int[] getOutputNodes(int i) {
+        ensureOutputNodes();
+        return Arrays.copyOfRange(outputs, outputOffsets[i], outputOffsets[i + 1]);
+    }
+
     //Cascade updating, only updates nodes connected to previously updated nodes
     public void cascadeUpdate() {
+        observables.step();
+        long start = metrics != null ? System.nanoTime() : 0;
+
+        ensureOutputNodes();
         buffer.clear();
 
-        for (Node n : update) {
-            buffer.addAll(outputnodes[n.getID()]);
-            n.setBuffer();
+        for (int i = 0; i < update.size(); i++) {
+            int id = update.get(i);
+            for (int j = outputOffsets[id]; j < outputOffsets[id + 1]; j++) {
+                buffer.add(outputs[j]);
+            }
+            network[id].setBuffer();
         }
 
-        for (Node n : update) {
-            n.swapBuffer();
+        for (int i = 0; i < update.size(); i++) {
+            network[update.get(i)].swapBuffer();
         }
 
-        update.clear();
-        update.addAll(buffer);
+        if (metrics != null) {
+            metrics.cascade(update.size(), buffer.size());
+            metrics.step("cascadeUpdate", update.size(), observables.flips, start);
+        }
+
+        update.copy(buffer);
     }
 
     public BooleanNetwork cascadeUpdateNoNodes() {
+        ensureOutputNodes();
         buffer.clear();
 
-        for (Node n : update) {
-            buffer.addAll(outputnodes[n.getID()]);
+        for (int i = 0; i < update.size(); i++) {
+            int id = update.get(i);
+            for (int j = outputOffsets[id]; j < outputOffsets[id + 1]; j++) {
+                buffer.add(outputs[j]);
+            }
         }
 
-        update.clear();
-        update.addAll(buffer);
+        update.copy(buffer);
 
         return this;
     }
@@ -113,7 +258,7 @@ public class BooleanNetwork {
 
     public BooleanNetwork addUpdateNode(int... n) {
         for (int i : n) {
-            update.add(getNode(i));
+            update.add(i);
         }
         return this;
     }
@@ -123,7 +268,7 @@ public class BooleanNetwork {
         update.clear();
 
         for(int i : n){
-            update.add(getNode(i));
+            update.add(i);
         }
         return this;
     }
@@ -134,13 +279,98 @@ public class BooleanNetwork {
 
     //Updates a randomly selected node with uniform probability
     public void asyncUpdate(){
+        observables.step();
+        long start = metrics != null ? System.nanoTime() : 0;
+
         Node n = getNode(ThreadLocalRandom.current().nextInt(size));
 
         n.setState(n.nextState());
+
+        if (metrics != null) metrics.step("asyncUpdate", 1, observables.flips, start);
+    }
+
+    //Permutation shuffled in place by randomOrderUpdate, and the random picks of asyncSweep.
+    //Kept apart so the picks (which repeat nodes) never end up in the permutation
+    int[] order;
+    int[] picks;
+
+    private int[] order() {
+        if (order == null || order.length != size) {
+            order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+        }
+        return order;
+    }
+
+    private int[] picks() {
+        if (picks == null || picks.length != size) {
+            picks = new int[size];
+        }
+        return picks;
+    }
+
+    //N asynchronous updates of independently chosen random nodes, the same as N calls to asyncUpdate
+    public void asyncSweep(){
+        observables.step();
+        long start = metrics != null ? System.nanoTime() : 0;
+
+        int[] block = picks();
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+
+        for (int i = 0; i < size; i++) {
+            block[i] = rand.nextInt(size);
+        }
+
+        for (int i = 0; i < size; i++) {
+            Node n = network[block[i]];
+            n.setState(n.nextState());
+        }
+
+        if (metrics != null) metrics.step("asyncSweep", size, observables.flips, start);
+    }
+
+    //Random order asynchronous update (ROA), every node once per sweep in a freshly shuffled order
+    public void randomOrderUpdate(){
+        observables.step();
+        long start = metrics != null ? System.nanoTime() : 0;
+
+        int[] block = order();
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+
+        for (int i = size - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int swap = block[i];
+            block[i] = block[j];
+            block[j] = swap;
+        }
+
+        for (int i = 0; i < size; i++) {
+            Node n = network[block[i]];
+            n.setState(n.nextState());
+        }
+
+        if (metrics != null) metrics.step("randomOrderUpdate", size, observables.flips, start);
+    }
+
+    //Fixed order asynchronous update, nodes 0 to N - 1 in place
+    public void sequentialUpdate(){
+        observables.step();
+        long start = metrics != null ? System.nanoTime() : 0;
+
+        for (Node n : network) {
+            n.setState(n.nextState());
+        }
+
+        if (metrics != null) metrics.step("sequentialUpdate", size, observables.flips, start);
     }
 
     //Classical updating scheme
     public void update(){
+        observables.step();
+        long start = metrics != null ? System.nanoTime() : 0;
+
         for(Node n : network){
             n.setBuffer();
         }
@@ -148,6 +378,61 @@ public class BooleanNetwork {
         for(Node n : network){
             n.swapBuffer();
         }
+
+        if (metrics != null) metrics.step("update", size, observables.flips, start);
+    }
+
+    //Synchronous update with both phases split into chunks across the pool, same result as update()
+    public void parallelUpdate() {
+        observables.step();
+        long start = metrics != null ? System.nanoTime() : 0;
+
+        ForkJoinPool pool = this.pool != null ? this.pool : ForkJoinPool.commonPool();
+        int chunk = chunkSize > 0 ? chunkSize : 4096;
+
+        ParallelRange.run(pool, size, chunk, setBuffers);
+        ParallelRange.run(pool, size, chunk, swapBuffers);
+
+        if (metrics != null) metrics.step("parallelUpdate", size, observables.flips, start);
+    }
+
+    //Makes iterate and findAttractor use the parallel update with the given number of threads and nodes per task
+    public BooleanNetwork setParallel(int parallelism, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+
+        setSequential();
+        this.pool = new ForkJoinPool(parallelism);
+        this.chunkSize = chunkSize;
+
+        return this;
+    }
+
+    //Returns iterate and findAttractor to the single threaded update and releases the pool
+    public BooleanNetwork setSequential() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+
+        return this;
+    }
+
+    //Runs the synchronous update (parallel if enabled) until the trajectory closes a cycle, leaving the
+    //network on the attractor
+    public Attractor findAttractor() {
+        return findAttractor(Integer.MAX_VALUE);
+    }
+
+    //Returns null if no cycle is found within maxSteps updates
+    public Attractor findAttractor(int maxSteps) {
+        long start = metrics != null ? System.nanoTime() : 0;
+
+        Attractor attractor = Attractor.find(size, this::defaultUpdate, this::packState, this::setPackedState, maxSteps);
+
+        if (metrics != null) metrics.attractor(attractor, start);
+        return attractor;
     }
 
     /* Network Generation Methods*/
@@ -156,6 +441,8 @@ public class BooleanNetwork {
     public BooleanNetwork setNetwork(List<SD> connections, int size){
         network = new Node[size];
         this.size = size;
+        outputOffsets = null;
+        resetFrontier();
 
         for(int i = 0; i < size; i++){
             network[i] = new Node(i);
@@ -175,6 +462,49 @@ public class BooleanNetwork {
             network[i].setNeighbors(neighbors[i]);//Add neighbor arrays to nodes
         }
 
+        attachObservables();
+        return this;
+    }
+
+    //Edge i runs from node src[i] to node dst[i], as produced by NetworkDistribution.getEdges
+    public BooleanNetwork setNetwork(int[] src, int[] dst, int size){
+        return setNetwork(src, dst, src.length, size);
+    }
+
+    public BooleanNetwork setNetwork(int[] src, int[] dst, int edges, int size){
+        network = new Node[size];
+        this.size = size;
+        outputOffsets = null;
+        resetFrontier();
+
+        for(int i = 0; i < size; i++){
+            network[i] = new Node(i);
+        }
+
+        //Group sources by destination in CSR form, keeping edge order within each node
+        int[] offsets = new int[size + 1];
+        for(int i = 0; i < edges; i++){
+            offsets[dst[i] + 1]++;
+        }
+        for(int i = 0; i < size; i++){
+            offsets[i + 1] += offsets[i];
+        }
+
+        int[] sources = new int[edges];
+        int[] fill = Arrays.copyOf(offsets, size);
+        for(int i = 0; i < edges; i++){
+            sources[fill[dst[i]]++] = src[i];
+        }
+
+        for(int i = 0; i < size; i++){
+            ArrayList<Node> neighbors = new ArrayList<>(offsets[i + 1] - offsets[i]);
+            for(int j = offsets[i]; j < offsets[i + 1]; j++){
+                neighbors.add(network[sources[j]]);
+            }
+            network[i].setNeighbors(neighbors);
+        }
+
+        attachObservables();
         return this;
     }
 
@@ -182,6 +512,8 @@ public class BooleanNetwork {
     public BooleanNetwork setNetwork(int[][] neighbors) {//includes placeholder value
         network = new Node[neighbors.length]; //set to n size
         this.size = neighbors.length;
+        outputOffsets = null;
+        resetFrontier();
 
         for (int i = 0; i < size; i++) {//initialize network of nodes
             network[i] = new Node(i);
@@ -199,6 +531,7 @@ public class BooleanNetwork {
             network[i].setNeighbors(nb);
         }
 
+        attachObservables();
         return this;
     }
 
@@ -225,7 +558,7 @@ public class BooleanNetwork {
     public BooleanNetwork seedNetworkExact(double p) {
         resetState(); //for repeated use of seed method
 
-        while (getComposition() < p) {
+        while (observables.getDensity() < p) {
             network[rand.nextInt(size)].setState(1);
         }
 
@@ -244,21 +577,54 @@ public class BooleanNetwork {
 
     //Returns percent of network in state 1
     public double getComposition() {
-        int counter = 0;
+        return observables.getDensity();
+    }
+
+    //Creates new rule for each node in network
+    public BooleanNetwork generateRandomRules() {
+        for (Node n : network) {
+            n.initRules();
+        }
+
+        return this;
+    }
+
+    //Creates new packed rule for each node in network, sized to its in-degree
+    public BooleanNetwork generatePackedRules() {
+        for (Node n : network) {
+            n.setRule(PackedRule.random(n.getNeighbors().size()));
+        }
+
+        return this;
+    }
+
+    //Converts every rule to a packed table sized to the node's in-degree, optionally sharing equal tables
+    public BooleanNetwork packRules(boolean share) {
+        PackedRule[] rules = new PackedRule[size];
+
+        for (int i = 0; i < size; i++) {
+            rules[i] = PackedRule.fromRule(network[i].getTruthTable(), network[i].getNeighbors().size());
+        }
 
+        return setRules(share ? PackedRule.share(rules) : rules);
+    }
+
+    //Replaces every rule with the canonical packed table from RuleCache (in-degree up to 4), so equal
+    //tables are one shared immutable instance across nodes and networks
+    public BooleanNetwork internRules() {
         for (Node n : network) {
-            if(n.getState() == 1){
-                counter++;
+            if (n.getTruthTable() != null) {
+                n.setRule(RuleCache.intern(n.getTruthTable(), n.getNeighbors().size()));
             }
         }
 
-        return (double) counter / size;
+        return this;
     }
 
-    //Creates new rule for each node in network
-    public BooleanNetwork generateRandomRules() {
+    //Random canonical rule for each node, sized to its in-degree
+    public BooleanNetwork generateInternedRules() {
         for (Node n : network) {
-            n.initRules();
+            n.setRule(RuleCache.random(n.getNeighbors().size()));
         }
 
         return this;
@@ -266,7 +632,7 @@ public class BooleanNetwork {
 
    /* Setter Methods */
 
-    public BooleanNetwork setRules(Rule[] rules) {
+    public BooleanNetwork setRules(TruthTable[] rules) {
         for (int i = 0; i < network.length; i++) {
             network[i].setRule(rules[i]);
         }
@@ -286,16 +652,35 @@ public class BooleanNetwork {
 
     public BooleanNetwork setNetwork(Node[] network) {
         this.network = network;
+        this.size = network.length;
+        outputOffsets = null;
+        resetFrontier();
+        attachObservables();
         return this;
     }
 
+    //Checks every value first, so a bad state leaves the network unchanged
     public BooleanNetwork setState(int[] state) {
+        for (int i = 0; i < network.length; i++) {
+            if (state[i] != 0 && state[i] != 1) {
+                throw new IllegalArgumentException("State of node " + i + " must be 0 or 1, not " + state[i]);
+            }
+        }
+
         for (int i = 0; i < network.length; i++) {
             network[i].setState(state[i]);
         }
         return this;
     }
 
+    //Sets state from 64 nodes per word, node i is bit (i & 63) of word i >>> 6
+    public BooleanNetwork setPackedState(long[] words) {
+        for (int i = 0; i < network.length; i++) {
+            network[i].setState((int) (words[i >>> 6] >>> i & 1));
+        }
+        return this;
+    }
+
     /* Getter Methods */
 
     public Node getNode(int i) {
@@ -310,6 +695,23 @@ public class BooleanNetwork {
         return state;
     }
 
+    //Packs state 64 nodes per word into an array of at least (size + 63) / 64 words
+    public long[] packState(long[] words) {
+        for (int w = 0; w < words.length; w++) {
+            long word = 0;
+            for (int i = w << 6, end = Math.min(i + 64, network.length); i < end; i++) {
+                if (network[i].getState() > 0) word |= 1L << i;
+            }
+            words[w] = word;
+        }
+        return words;
+    }
+
+    //Returns flat array copy of the network for faster simulation
+    public CompiledNetwork compile() {
+        return new CompiledNetwork(this);
+    }
+
     //TODO: could also just return size... perhaps this is safer
     public int getSize(){
         return network.length;
@@ -331,7 +733,7 @@ public class BooleanNetwork {
     public BooleanNetwork printNetwork(){
         for(Node n : network){
             System.out.printf("%d:\t%d\n\t",n.getID(),n.getState());  //print ID and State
-            n.getRule().printRules();//print rules
+            n.getTruthTable().printRules();//print rules
             System.out.print("\t[");
             ArrayList<Node> k = n.getNeighbors();
             for(int i = 0; i < k.size(); i++){
@@ -374,11 +776,12 @@ public class BooleanNetwork {
     }
 
     public BooleanNetwork printOutputNodes(){
+        ensureOutputNodes();
         System.out.println("Output Nodes:");
-        for(int i = 0; i < outputnodes.length; i++){
+        for(int i = 0; i < size; i++){
             System.out.print(i + ":\t");
-            for(Node l : outputnodes[i]){
-                System.out.print(l.getID() + "\t");
+            for(int j = outputOffsets[i]; j < outputOffsets[i + 1]; j++){
+                System.out.print(outputs[j] + "\t");
             }
             System.out.println();
         }
@@ -0,0 +1,51 @@
+package NetworkUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+//Buffered little endian writer over a file channel
+class ChannelOutput {
+
+    private static final int BUFFER = 1 << 20;
+
+    final FileChannel channel;
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+
+    //Bytes handed to the channel so far
+    long written;
+
+    ChannelOutput(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.written = channel.position();
+    }
+
+    //File position of the next byte put
+    long position() {
+        return written + buffer.position();
+    }
+
+    void putByte(byte b) throws IOException {
+        if (buffer.remaining() < 1) flush();
+        buffer.put(b);
+    }
+
+    void putInt(int v) throws IOException {
+        if (buffer.remaining() < 4) flush();
+        buffer.putInt(v);
+    }
+
+    void putLong(long v) throws IOException {
+        if (buffer.remaining() < 8) flush();
+        buffer.putLong(v);
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
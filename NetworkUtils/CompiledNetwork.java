@@ -0,0 +1,287 @@
+package NetworkUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.SplittableRandom;
+
+/**     Simulation handle for a NetworkDefinition. The handle owns only the state/buffer arrays and
+ *  its random generator, topology and rules are read from the shared definition, so handles for
+ *  the same definition can run on different threads at once. Updates do not allocate.
+ */
+
+public class CompiledNetwork {
+
+    final NetworkDefinition definition;
+
+    //Arrays of the definition, kept here for the update loops
+    final int size;
+    final int[] offsets;
+    final int[] inputs;
+    final int[] tableOffsets;
+    final long[] tables;
+
+    //Current state and update buffer, swapped after every synchronous update
+    byte[] state;
+    byte[] buffer;
+
+    //Used by the asynchronous schemes, never shared with another handle
+    SplittableRandom rand;
+
+    public CompiledNetwork(NetworkDefinition definition) {
+        this.definition = definition;
+        this.size = definition.size;
+        this.offsets = definition.offsets;
+        this.inputs = definition.inputs;
+        this.tableOffsets = definition.tableOffsets;
+        this.tables = definition.tables;
+
+        state = new byte[size];
+        buffer = new byte[size];
+        rand = new SplittableRandom();
+    }
+
+    //Compiles the topology, rules and current state of an object model network
+    public CompiledNetwork(BooleanNetwork network) {
+        this(network.getNetwork());
+    }
+
+    public CompiledNetwork(Node[] network) {
+        this(new NetworkDefinition(network));
+
+        for (int i = 0; i < size; i++) {
+            state[i] = network[i].getState() > 0 ? (byte) 1 : 0;
+        }
+    }
+
+    //Compiles a topology in the form [node][inputs] (-1 entries are unused) with one rule table per node
+    public CompiledNetwork(int[][] topology, byte[][] rules) {
+        this(new NetworkDefinition(topology, rules));
+    }
+
+    //Another handle on the same definition, starting from this handle's state
+    public CompiledNetwork copy() {
+        CompiledNetwork handle = new CompiledNetwork(definition);
+        System.arraycopy(state, 0, handle.state, 0, size);
+        handle.rand = rand.split();
+        return handle;
+    }
+
+    //Evaluates the rule of node i against the current state
+    byte nextState(int i) {
+        int index = 0;
+
+        for (int j = offsets[i], end = offsets[i + 1]; j < end; j++) {
+            index = (index << 1) | state[inputs[j]];
+        }
+
+        return (byte) (tables[tableOffsets[i] + (index >>> 6)] >>> index & 1);
+    }
+
+    //Iterates network using the default, synchronous update
+    public CompiledNetwork iterate(int iter) {
+        for (int i = 0; i < iter; i++) {
+            update();
+        }
+        return this;
+    }
+
+    //Iterates network using any specified update method
+    public CompiledNetwork iterate(Runnable updateMethod, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            updateMethod.run();
+        }
+        return this;
+    }
+
+    //Iterates with the synchronous update, recording the state after every step (and the start state
+    //if nothing has been recorded yet)
+    public CompiledNetwork iterate(int iter, TrajectoryRecorder recorder) {
+        return iterate(this::update, iter, recorder);
+    }
+
+    public CompiledNetwork iterate(Runnable updateMethod, int iterations, TrajectoryRecorder recorder) {
+        try {
+            if (recorder.getFrames() == 0) {
+                recorder.record(this);
+            }
+
+            for (int i = 0; i < iterations; i++) {
+                updateMethod.run();
+                recorder.record(this);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    //Classical updating scheme
+    public void update() {
+        for (int i = 0; i < size; i++) {
+            buffer[i] = nextState(i);
+        }
+
+        byte[] swap = state;
+        state = buffer;
+        buffer = swap;
+    }
+
+    //Updates a randomly selected node with uniform probability
+    public void asyncUpdate() {
+        int i = rand.nextInt(size);
+
+        state[i] = nextState(i);
+    }
+
+    //Permutation shuffled in place by randomOrderUpdate, and the random picks of asyncSweep.
+    //Kept apart so the picks (which repeat nodes) never end up in the permutation
+    private int[] order;
+    private int[] picks;
+
+    private int[] order() {
+        if (order == null) {
+            order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+        }
+        return order;
+    }
+
+    private int[] picks() {
+        if (picks == null) {
+            picks = new int[size];
+        }
+        return picks;
+    }
+
+    //N asynchronous updates of independently chosen random nodes, the same as N calls to asyncUpdate
+    public void asyncSweep() {
+        int[] block = picks();
+
+        for (int i = 0; i < size; i++) {
+            block[i] = rand.nextInt(size);
+        }
+
+        for (int i = 0; i < size; i++) {
+            int n = block[i];
+            state[n] = nextState(n);
+        }
+    }
+
+    //Random order asynchronous update (ROA), every node once per sweep in a freshly shuffled order
+    public void randomOrderUpdate() {
+        int[] block = order();
+
+        for (int i = size - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int swap = block[i];
+            block[i] = block[j];
+            block[j] = swap;
+        }
+
+        for (int i = 0; i < size; i++) {
+            int n = block[i];
+            state[n] = nextState(n);
+        }
+    }
+
+    //Fixed order asynchronous update, nodes 0 to N - 1 in place
+    public void sequentialUpdate() {
+        for (int i = 0; i < size; i++) {
+            state[i] = nextState(i);
+        }
+    }
+
+    //Runs the synchronous update until the trajectory closes a cycle, leaving the network on the attractor
+    public Attractor findAttractor() {
+        return findAttractor(Integer.MAX_VALUE);
+    }
+
+    //Returns null if no cycle is found within maxSteps updates
+    public Attractor findAttractor(int maxSteps) {
+        return Attractor.find(size, this::update, this::packState, this::setPackedState, maxSteps);
+    }
+
+    /* Setter Methods */
+
+    public CompiledNetwork setSeed(long seed) {
+        rand = new SplittableRandom(seed);
+        return this;
+    }
+
+    public CompiledNetwork setState(int[] state) {
+        for (int i = 0; i < size; i++) {
+            this.state[i] = state[i] > 0 ? (byte) 1 : 0;
+        }
+        return this;
+    }
+
+    public CompiledNetwork setState(int node, int state) {
+        this.state[node] = state > 0 ? (byte) 1 : 0;
+        return this;
+    }
+
+    //Sets state from 64 nodes per word, node i is bit (i & 63) of word i >>> 6
+    public CompiledNetwork setPackedState(long[] words) {
+        for (int i = 0; i < size; i++) {
+            state[i] = (byte) (words[i >>> 6] >>> i & 1);
+        }
+        return this;
+    }
+
+    //Writes the current state back into the nodes of an object model network
+    public CompiledNetwork copyStateTo(BooleanNetwork network) {
+        Node[] nodes = network.getNetwork();
+        for (int i = 0; i < size; i++) {
+            nodes[i].setState(state[i]);
+        }
+        return this;
+    }
+
+    /* Getter Methods */
+
+    public int getState(int node) {
+        return state[node];
+    }
+
+    public int[] getState() {
+        return getState(new int[size]);
+    }
+
+    //Copies the current state into an existing array
+    public int[] getState(int[] state) {
+        for (int i = 0; i < size; i++) {
+            state[i] = this.state[i];
+        }
+        return state;
+    }
+
+    //Packs state 64 nodes per word into an array of at least (size + 63) / 64 words
+    public long[] packState(long[] words) {
+        for (int w = 0; w < words.length; w++) {
+            long word = 0;
+            for (int i = w << 6, end = Math.min(i + 64, size); i < end; i++) {
+                word |= (long) state[i] << i;
+            }
+            words[w] = word;
+        }
+        return words;
+    }
+
+    public NetworkDefinition getDefinition() {
+        return definition;
+    }
+
+    public int getDegree(int node) {
+        return degree(node);
+    }
+
+    int degree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,191 @@
+package NetworkUtils;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**     Deterministic asynchronous updating. Node i is updated at every tick t with
+ *  t mod period[i] == phase[i]. Nodes are kept in a calendar queue with one bucket per tick
+ *  modulo H (the next power of two above the largest period), so a tick only touches the nodes
+ *  that are due. Nodes due at the same tick are updated one after another in index order (DARBN)
+ *  or synchronously among themselves (DGARBN).
+ *
+ *  Each call to run() is one tick, so the scheduler plugs into iterate(Runnable, int).
+ */
+
+public class DeterministicScheduler implements Runnable {
+
+    public enum Mode {
+        DARBN, DGARBN
+    }
+
+    //Exactly one of the two is set
+    private final CompiledNetwork compiled;
+    private final Node[] nodes;
+    private final Observables observables;
+
+    final int size;
+    final int[] periods;
+    final int[] phases;
+
+    private Mode mode = Mode.DARBN;
+
+    //Bucket b holds the nodes due at the next tick t with t & mask == b, linked through next
+    private final int[] head;
+    private final int[] next;
+    private final int mask;
+
+    //Nodes due at the current tick and, for DGARBN, their new states
+    private final int[] due;
+    private final byte[] values;
+
+    private long time;
+
+    public DeterministicScheduler(CompiledNetwork network, int[] periods, int[] phases) {
+        this(network, null, null, network.getSize(), periods, phases);
+    }
+
+    //Works on the nodes the network holds now, a later setNetwork needs a new scheduler
+    public DeterministicScheduler(BooleanNetwork network, int[] periods, int[] phases) {
+        this(null, network.getNetwork(), network.getObservables(), network.getSize(), periods, phases);
+    }
+
+    private DeterministicScheduler(CompiledNetwork compiled, Node[] nodes, Observables observables, int size,
+                                   int[] periods, int[] phases) {
+        if (periods.length != size || phases.length != size) {
+            throw new IllegalArgumentException("Expected a period and phase for each of the " + size + " nodes");
+        }
+
+        int maxPeriod = 1;
+
+        for (int i = 0; i < size; i++) {
+            if (periods[i] < 1 || phases[i] < 0 || phases[i] >= periods[i]) {
+                throw new IllegalArgumentException("Node " + i + " needs period >= 1 and 0 <= phase < period");
+            }
+            maxPeriod = Math.max(maxPeriod, periods[i]);
+        }
+
+        if (maxPeriod >= 1 << 30) {
+            throw new IllegalArgumentException("Periods must be below 2^30");
+        }
+
+        this.compiled = compiled;
+        this.nodes = nodes;
+        this.observables = observables;
+        this.size = size;
+        this.periods = periods.clone();
+        this.phases = phases.clone();
+
+        int buckets = Integer.highestOneBit(maxPeriod) << 1;
+        head = new int[buckets];
+        next = new int[size];
+        mask = buckets - 1;
+
+        due = new int[size];
+        values = new byte[size];
+
+        reset();
+    }
+
+    //Random periods in 1..maxPeriod with random phases, as in Gershenson's DARBN/DGARBN
+    public static int[][] randomTiming(int size, int maxPeriod, SplittableRandom rand) {
+        int[] periods = new int[size];
+        int[] phases = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            periods[i] = 1 + rand.nextInt(maxPeriod);
+            phases[i] = rand.nextInt(periods[i]);
+        }
+
+        return new int[][]{periods, phases};
+    }
+
+    public DeterministicScheduler setMode(Mode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    //Back to tick 0 with every node waiting for its phase
+    public DeterministicScheduler reset() {
+        Arrays.fill(head, -1);
+        time = 0;
+
+        for (int i = size - 1; i >= 0; i--) {
+            schedule(i, phases[i]);
+        }
+
+        return this;
+    }
+
+    private void schedule(int node, long tick) {
+        int bucket = (int) (tick & mask);
+        next[node] = head[bucket];
+        head[bucket] = node;
+    }
+
+    //Advances one tick
+    @Override
+    public void run() {
+        if (observables != null) observables.step();
+
+        int bucket = (int) (time & mask);
+        int count = 0;
+
+        for (int n = head[bucket]; n >= 0; n = next[n]) {
+            due[count++] = n;
+        }
+        head[bucket] = -1;
+
+        if (mode == Mode.DARBN) {
+            Arrays.sort(due, 0, count);
+
+            if (compiled != null) {
+                for (int i = 0; i < count; i++) {
+                    compiled.state[due[i]] = compiled.nextState(due[i]);
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    Node n = nodes[due[i]];
+                    n.setState(n.nextState());
+                }
+            }
+        } else if (compiled != null) {
+            for (int i = 0; i < count; i++) {
+                values[i] = compiled.nextState(due[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                compiled.state[due[i]] = values[i];
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                nodes[due[i]].setBuffer();
+            }
+            for (int i = 0; i < count; i++) {
+                nodes[due[i]].swapBuffer();
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            schedule(due[i], time + periods[due[i]]);
+        }
+
+        time++;
+    }
+
+    /* Getter Methods */
+
+    public long getTime() {
+        return time;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getPeriod(int node) {
+        return periods[node];
+    }
+
+    public int getPhase(int node) {
+        return phases[node];
+    }
+}
@@ -0,0 +1,194 @@
+package NetworkUtils;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**     Bit parallel simulator that runs 64 replicas of a compiled network at once. Bit r of
+ *  state[i] is the state of node i in replica r, so one synchronous update advances all 64
+ *  trajectories. Replicas share the topology and rules of one NetworkDefinition, only their states
+ *  differ.
+ */
+
+public class EnsembleNetwork {
+
+    public static final int REPLICAS = 64;
+
+    final NetworkDefinition network;
+    final int size;
+
+    long[] state;
+    long[] buffer;
+
+    //Per node multiplexer tree, sized for the largest in-degree
+    private final long[] scratch;
+
+    public EnsembleNetwork(NetworkDefinition network) {
+        this.network = network;
+        this.size = network.getSize();
+
+        state = new long[size];
+        buffer = new long[size];
+
+        scratch = new long[1 << network.getMaxDegree()];
+    }
+
+    public EnsembleNetwork(CompiledNetwork network) {
+        this(network.getDefinition());
+    }
+
+    public EnsembleNetwork(BooleanNetwork network) {
+        this(network.compile());
+    }
+
+    //Evaluates the rule of node i for all replicas. The table is reduced one input at a time,
+    //starting with the least significant (last) input, so each entry costs a single select
+    long nextState(int i) {
+        int start = network.offsets[i];
+        int k = network.offsets[i + 1] - start;
+
+        if (k == 0) return 0;
+
+        long[] tables = network.tables;
+        int base = network.tableOffsets[i];
+        int entries = 1 << k;
+
+        for (int j = 0; j < entries; j++) {
+            scratch[j] = -(tables[base + (j >>> 6)] >>> j & 1);
+        }
+
+        for (int p = k - 1; p >= 0; p--) {
+            long x = state[network.inputs[start + p]];
+            entries >>>= 1;
+
+            for (int j = 0; j < entries; j++) {
+                long low = scratch[2 * j];
+                scratch[j] = low ^ (x & (low ^ scratch[2 * j + 1]));
+            }
+        }
+
+        return scratch[0];
+    }
+
+    //Iterates all replicas using the synchronous update
+    public EnsembleNetwork iterate(int iter) {
+        for (int i = 0; i < iter; i++) {
+            update();
+        }
+        return this;
+    }
+
+    //Classical updating scheme, applied to every replica
+    public void update() {
+        for (int i = 0; i < size; i++) {
+            buffer[i] = nextState(i);
+        }
+
+        long[] swap = state;
+        state = buffer;
+        buffer = swap;
+    }
+
+    /* Setter Methods */
+
+    //Sets every replica to the same state
+    public EnsembleNetwork setState(int[] state) {
+        for (int i = 0; i < size; i++) {
+            this.state[i] = state[i] > 0 ? -1L : 0L;
+        }
+        return this;
+    }
+
+    public EnsembleNetwork setReplicaState(int replica, int[] state) {
+        long bit = 1L << replica;
+
+        for (int i = 0; i < size; i++) {
+            if (state[i] > 0) {
+                this.state[i] |= bit;
+            } else {
+                this.state[i] &= ~bit;
+            }
+        }
+        return this;
+    }
+
+    //Gives every replica an independent, uniformly random state
+    public EnsembleNetwork randomState() {
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+
+        for (int i = 0; i < size; i++) {
+            state[i] = rand.nextLong();
+        }
+        return this;
+    }
+
+    //Flips a single node of one replica, used for damage spreading
+    public EnsembleNetwork perturb(int replica, int node) {
+        state[node] ^= 1L << replica;
+        return this;
+    }
+
+    //Sets the states of node i for all replicas, bit r belongs to replica r
+    public EnsembleNetwork setWord(int node, long word) {
+        state[node] = word;
+        return this;
+    }
+
+    /* Getter Methods */
+
+    public long getWord(int node) {
+        return state[node];
+    }
+
+    public int[] getReplicaState(int replica) {
+        return getReplicaState(replica, new int[size]);
+    }
+
+    //Copies the state of one replica into an existing array
+    public int[] getReplicaState(int replica, int[] state) {
+        for (int i = 0; i < size; i++) {
+            state[i] = (int) (this.state[i] >>> replica & 1);
+        }
+        return state;
+    }
+
+    //Number of nodes whose state differs between two replicas
+    public int hammingDistance(int a, int b) {
+        int distance = 0;
+
+        for (int i = 0; i < size; i++) {
+            distance += (int) ((state[i] >>> a ^ state[i] >>> b) & 1);
+        }
+
+        return distance;
+    }
+
+    public int[] hammingDistances(int reference) {
+        return hammingDistances(reference, new int[REPLICAS]);
+    }
+
+    //Hamming distance of every replica to a reference replica
+    public int[] hammingDistances(int reference, int[] distances) {
+        for (int r = 0; r < REPLICAS; r++) {
+            distances[r] = 0;
+        }
+
+        for (int i = 0; i < size; i++) {
+            //Bits set where a replica differs from the reference
+            long diff = state[i] ^ -(state[i] >>> reference & 1);
+
+            while (diff != 0) {
+                distances[Long.numberOfTrailingZeros(diff)]++;
+                diff &= diff - 1;
+            }
+        }
+
+        return distances;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public NetworkDefinition getDefinition() {
+        return network;
+    }
+}
@@ -0,0 +1,278 @@
+package NetworkUtils;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**     Runs a measurement over many random networks and many runs (start states) per network on a
+ *  work stealing pool. Each network gets its own SplittableRandom, split from the seed in network
+ *  order, and each run a stream split from that of its network in run order, so results for a seed
+ *  do not depend on the number of threads. Runs are done in blocks on copies of the network, so a
+ *  few networks with many runs still use every thread. The runs of a network are combined by the
+ *  reducer (mean by default), and the summary is taken over networks, which are the independent
+ *  samples.
+ *
+ *  Experiment experiment = new Experiment()
+ *      .setFactory(Experiment.randomNetworks(100, 2, 10))
+ *      .setMeasurement(Experiment.hamming(200))
+ *      .setNetworks(1000)
+ *      .setRuns(100);
+ *
+ *  Summary damage = experiment.run();
+ */
+
+public class Experiment {
+
+    //Builds one network, randomness should come from rand for reproducible experiments
+    public interface Factory {
+        CompiledNetwork create(SplittableRandom rand);
+    }
+
+    //One run on a network, the state of the network is whatever the previous run of its block left
+    public interface Measurement {
+        double measure(CompiledNetwork network, SplittableRandom rand);
+    }
+
+    //Combines the runs on one network into a single value
+    public interface Reducer {
+        double reduce(double[] runs);
+    }
+
+    private Factory factory;
+    private Measurement measurement;
+    private Reducer reducer = Experiment::mean;
+
+    private int networks = 100;
+    private int runs = 100;
+    private int runBlock = 16;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private long seed = System.nanoTime();
+
+    public Experiment setFactory(Factory factory) {
+        this.factory = factory;
+        return this;
+    }
+
+    public Experiment setMeasurement(Measurement measurement) {
+        this.measurement = measurement;
+        return this;
+    }
+
+    public Experiment setReducer(Reducer reducer) {
+        this.reducer = reducer;
+        return this;
+    }
+
+    public Experiment setNetworks(int networks) {
+        this.networks = networks;
+        return this;
+    }
+
+    public Experiment setRuns(int runs) {
+        this.runs = runs;
+        return this;
+    }
+
+    //Runs done one after another on the same copy of a network
+    public Experiment setRunBlock(int runBlock) {
+        if (runBlock < 1) {
+            throw new IllegalArgumentException("Run block must be at least 1");
+        }
+        this.runBlock = runBlock;
+        return this;
+    }
+
+    public Experiment setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public Experiment setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    //Builds every network, runs each block of runs as its own task and summarises the reduced values
+    public Summary run() {
+        if (factory == null || measurement == null) {
+            throw new IllegalStateException("Experiment needs a factory and a measurement");
+        }
+
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[networks];
+
+        for (int i = 0; i < networks; i++) {
+            streams[i] = root.split();
+        }
+
+        int blocks = Math.max(1, (runs + runBlock - 1) / runBlock);
+
+        //Handles of network i for each block, and the stream of each run
+        CompiledNetwork[][] handles = new CompiledNetwork[networks][blocks];
+        SplittableRandom[][] runStreams = new SplittableRandom[networks][runs];
+        double[][] results = new double[networks][runs];
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            ParallelRange.run(pool, networks, 1, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    build(streams[i], handles[i], runStreams[i]);
+                }
+            });
+
+            ParallelRange.run(pool, networks * blocks, 1, (from, to) -> {
+                for (int t = from; t < to; t++) {
+                    int i = t / blocks, b = t % blocks;
+                    measureBlock(handles[i][b], runStreams[i], results[i], b * runBlock, Math.min(runs, (b + 1) * runBlock));
+                    handles[i][b] = null;
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+
+        double[] values = new double[networks];
+        for (int i = 0; i < networks; i++) {
+            values[i] = reducer.reduce(results[i]);
+        }
+
+        return new Summary(values);
+    }
+
+    //Splits happen in a fixed order here, so nothing drawn later depends on scheduling
+    private void build(SplittableRandom rand, CompiledNetwork[] handles, SplittableRandom[] runStreams) {
+        CompiledNetwork network = factory.create(rand);
+
+        handles[0] = network;
+        for (int b = 1; b < handles.length; b++) {
+            handles[b] = network.copy();
+        }
+
+        for (int r = 0; r < runStreams.length; r++) {
+            runStreams[r] = rand.split();
+        }
+    }
+
+    private void measureBlock(CompiledNetwork network, SplittableRandom[] runStreams, double[] results, int from, int to) {
+        for (int r = from; r < to; r++) {
+            results[r] = measurement.measure(network, runStreams[r]);
+        }
+    }
+
+    public static double mean(double[] runs) {
+        double total = 0;
+        for (double r : runs) {
+            total += r;
+        }
+        return total / runs.length;
+    }
+
+    /* Factories */
+
+    //Poisson in-degree networks as made by Networks.randomTopology, with random rules
+    public static Factory randomNetworks(int size, double k, int maxk) {
+        return rand -> {
+            int[][] topology = Networks.randomTopology(size, k, maxk, rand);
+            return new CompiledNetwork(topology, Networks.randomRulesetByte(size, maxk, rand));
+        };
+    }
+
+    /* Measurements */
+
+    //Nodes that differ after steps updates when a single random node of a random state is flipped
+    public static Measurement hamming(int steps) {
+        return (network, rand) -> {
+            int size = network.getSize();
+            int[] start = randomState(size, rand);
+
+            int[] first = network.setState(start).iterate(steps).getState();
+
+            int node = rand.nextInt(size);
+            network.setState(start).setState(node, 1 - start[node]);
+
+            int[] second = network.iterate(steps).getState(start);
+
+            return distance(first, second);
+        };
+    }
+
+    //Normalised distance after one update between a random state and a copy with distance nodes flipped
+    public static Measurement derrida(int distance) {
+        return (network, rand) -> {
+            int size = network.getSize();
+
+            if (distance > size) {
+                throw new IllegalArgumentException("Derrida distance is larger than the network");
+            }
+
+            int[] start = randomState(size, rand);
+            int[] perturbed = start.clone();
+
+            //Partial shuffle to pick distinct nodes
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            for (int i = 0; i < distance; i++) {
+                int j = i + rand.nextInt(size - i);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+                perturbed[order[i]] ^= 1;
+            }
+
+            network.setState(start).update();
+            int[] first = network.getState();
+
+            network.setState(perturbed).update();
+
+            return (double) distance(first, network.getState(perturbed)) / size;
+        };
+    }
+
+    //Density classification: fraction of nodes in the initial majority state after steps updates,
+    //starting from a random state with a random density
+    public static Measurement density(int steps) {
+        return (network, rand) -> {
+            int size = network.getSize();
+            double p = rand.nextDouble();
+
+            int[] start = new int[size];
+            int ones = 0;
+
+            for (int i = 0; i < size; i++) {
+                if (rand.nextDouble() < p) {
+                    start[i] = 1;
+                    ones++;
+                }
+            }
+
+            //Same tie break as NetworkStats.getMajority
+            int majority = size - ones > size / 2 ? 0 : 1;
+
+            int[] end = network.setState(start).iterate(steps).getState(start);
+
+            int counter = 0;
+            for (int s : end) {
+                if (s == majority) counter++;
+            }
+
+            return (double) counter / size;
+        };
+    }
+
+    private static int[] randomState(int size, SplittableRandom rand) {
+        int[] state = new int[size];
+        for (int i = 0; i < size; i++) {
+            state[i] = rand.nextInt(2);
+        }
+        return state;
+    }
+
+    private static int distance(int[] a, int[] b) {
+        int distance = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) distance++;
+        }
+        return distance;
+    }
+}
@@ -0,0 +1,455 @@
+package NetworkUtils;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**     Evolves networks of a fixed size. Genomes use the GA forms from Networks: a topology of
+ *  maxK input slots per node (-1 for unused) and a rule table of 2^maxK entries per node, stored
+ *  bit packed. The whole population lives in flat arrays with a second set for the offspring, so
+ *  a generation only copies and flips within preallocated memory.
+ *
+ *  Fitness is the mean of a measurement (see Experiment) over several trials on a compiled copy
+ *  of each individual, evaluated in parallel. Every individual draws from its own SplittableRandom
+ *  split from the seed, so a run is reproducible for any number of threads.
+ *
+ *  GeneticAlgorithm ga = new GeneticAlgorithm(149, 3, 7)
+ *      .setPopulation(1000)
+ *      .setFitness(Experiment.density(100))
+ *      .evolve(200);
+ */
+
+public class GeneticAlgorithm {
+
+    final int size;
+    final int maxK;
+    final double k;
+
+    //Words per node rule table
+    final int words;
+
+    private int population = 100;
+    private Experiment.Measurement fitnessMeasure = Experiment.density(100);
+    private int trials = 10;
+
+    private double ruleMutation = 0.001;
+    private double topologyMutation = 0.01;
+    private double crossoverRate = 0.7;
+    private int tournament = 3;
+    private int elitism = 1;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    private SplittableRandom rand = new SplittableRandom();
+
+    //Individual p owns topology[p * size * maxK ..] and rules[p * size * words ..]
+    private int[] topology, nextTopology;
+    private long[] rules, nextRules;
+    private double[] fitness;
+    private boolean evaluated;
+
+    private int generation;
+
+    //Scratch for elitism
+    private int[] elite;
+
+    public GeneticAlgorithm(int size, double k, int maxK) {
+        if (maxK < 1 || maxK > 30) {
+            throw new IllegalArgumentException("maxK must be between 1 and 30");
+        }
+
+        this.size = size;
+        this.k = k;
+        this.maxK = maxK;
+        this.words = PackedRule.wordCount(maxK);
+    }
+
+    /* Setter Methods */
+
+    public GeneticAlgorithm setPopulation(int population) {
+        this.population = population;
+        this.topology = null;
+        return this;
+    }
+
+    public GeneticAlgorithm setFitness(Experiment.Measurement fitness) {
+        this.fitnessMeasure = fitness;
+        this.evaluated = false;
+        return this;
+    }
+
+    //Runs of the measurement averaged into one fitness value
+    public GeneticAlgorithm setTrials(int trials) {
+        this.trials = trials;
+        this.evaluated = false;
+        return this;
+    }
+
+    //Probability of flipping each rule table entry
+    public GeneticAlgorithm setRuleMutation(double rate) {
+        this.ruleMutation = rate;
+        return this;
+    }
+
+    //Probability per node of rewiring, adding or removing one input
+    public GeneticAlgorithm setTopologyMutation(double rate) {
+        this.topologyMutation = rate;
+        return this;
+    }
+
+    //Probability that a child mixes two parents node by node instead of copying one
+    public GeneticAlgorithm setCrossoverRate(double rate) {
+        this.crossoverRate = rate;
+        return this;
+    }
+
+    public GeneticAlgorithm setTournamentSize(int tournament) {
+        this.tournament = tournament;
+        return this;
+    }
+
+    //Number of best individuals copied unchanged into the next generation
+    public GeneticAlgorithm setElitism(int elitism) {
+        this.elitism = elitism;
+        return this;
+    }
+
+    public GeneticAlgorithm setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public GeneticAlgorithm setSeed(long seed) {
+        this.rand = new SplittableRandom(seed);
+        this.topology = null;
+        return this;
+    }
+
+    //Replaces one individual, topology in the form [node][maxK inputs] and 2^maxK entry rule tables
+    public GeneticAlgorithm setIndividual(int p, int[][] topology, byte[][] rules) {
+        ensurePopulation();
+
+        for (int i = 0; i < size; i++) {
+            int slot = (p * size + i) * maxK;
+            int block = (p * size + i) * words;
+
+            for (int j = 0; j < maxK; j++) {
+                this.topology[slot + j] = j < topology[i].length ? topology[i][j] : -1;
+            }
+
+            for (int w = 0; w < words; w++) {
+                this.rules[block + w] = 0;
+            }
+            for (int e = 0; e < Math.min(rules[i].length, 1 << maxK); e++) {
+                if (rules[i][e] > 0) this.rules[block + (e >>> 6)] |= 1L << e;
+            }
+        }
+
+        evaluated = false;
+        return this;
+    }
+
+    /* Evolution */
+
+    //Random initial population with Poisson in-degrees around k
+    private void ensurePopulation() {
+        if (topology != null) return;
+
+        topology = new int[population * size * maxK];
+        nextTopology = new int[topology.length];
+        rules = new long[population * size * words];
+        nextRules = new long[rules.length];
+        fitness = new double[population];
+        elite = new int[population];
+        generation = 0;
+
+        for (int p = 0; p < population; p++) {
+            int[][] t = Networks.randomTopology(size, k, maxK, rand);
+
+            for (int i = 0; i < size; i++) {
+                System.arraycopy(t[i], 0, topology, (p * size + i) * maxK, maxK);
+            }
+        }
+
+        for (int i = 0; i < rules.length; i++) {
+            rules[i] = rand.nextLong();
+        }
+
+        evaluated = false;
+    }
+
+    public GeneticAlgorithm evolve(int generations) {
+        ensurePopulation();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (int g = 0; g < generations; g++) {
+                evaluate(pool);
+                breed();
+            }
+            evaluate(pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        return this;
+    }
+
+    private void evaluate(ForkJoinPool pool) {
+        if (evaluated) return;
+
+        SplittableRandom[] streams = new SplittableRandom[population];
+        for (int p = 0; p < population; p++) {
+            streams[p] = rand.split();
+        }
+
+        ParallelRange.run(pool, population, 1, (from, to) -> {
+            for (int p = from; p < to; p++) {
+                CompiledNetwork network = getDefinition(p).newHandle();
+                double total = 0;
+
+                for (int t = 0; t < trials; t++) {
+                    total += fitnessMeasure.measure(network, streams[p]);
+                }
+
+                fitness[p] = total / trials;
+            }
+        });
+
+        evaluated = true;
+    }
+
+    //Fills the offspring arrays from the current population, then swaps them in
+    private void breed() {
+        int elites = Math.min(elitism, population);
+        selectElite(elites);
+
+        for (int c = 0; c < elites; c++) {
+            copyIndividual(elite[c], c);
+        }
+
+        for (int c = elites; c < population; c++) {
+            int a = select();
+
+            if (rand.nextDouble() < crossoverRate) {
+                crossover(a, select(), c);
+            } else {
+                copyIndividual(a, c);
+            }
+
+            mutate(c);
+        }
+
+        int[] swapTopology = topology;
+        topology = nextTopology;
+        nextTopology = swapTopology;
+
+        long[] swapRules = rules;
+        rules = nextRules;
+        nextRules = swapRules;
+
+        evaluated = false;
+        generation++;
+    }
+
+    //Indices of the best individuals, best first
+    private void selectElite(int count) {
+        for (int p = 0; p < population; p++) {
+            elite[p] = p;
+        }
+
+        for (int c = 0; c < count; c++) {
+            int best = c;
+            for (int p = c + 1; p < population; p++) {
+                if (fitness[elite[p]] > fitness[elite[best]]) best = p;
+            }
+
+            int swap = elite[c];
+            elite[c] = elite[best];
+            elite[best] = swap;
+        }
+    }
+
+    private int select() {
+        int best = rand.nextInt(population);
+
+        for (int t = 1; t < tournament; t++) {
+            int p = rand.nextInt(population);
+            if (fitness[p] > fitness[best]) best = p;
+        }
+
+        return best;
+    }
+
+    private void copyIndividual(int parent, int child) {
+        System.arraycopy(topology, parent * size * maxK, nextTopology, child * size * maxK, size * maxK);
+        System.arraycopy(rules, parent * size * words, nextRules, child * size * words, size * words);
+    }
+
+    //Uniform crossover over whole nodes, so a node keeps the rule that matches its inputs
+    private void crossover(int a, int b, int child) {
+        for (int i = 0; i < size; i++) {
+            int parent = rand.nextBoolean() ? a : b;
+
+            System.arraycopy(topology, (parent * size + i) * maxK, nextTopology, (child * size + i) * maxK, maxK);
+            System.arraycopy(rules, (parent * size + i) * words, nextRules, (child * size + i) * words, words);
+        }
+    }
+
+    private void mutate(int child) {
+        //Geometric gaps between flipped rule entries instead of one draw per entry
+        if (ruleMutation > 0) {
+            long entries = (long) size << maxK;
+            long base = (long) child * size * words;
+            double scale = ruleMutation >= 1 ? 0 : 1 / Math.log(1 - ruleMutation);
+
+            for (long e = gap(scale); e < entries; e += 1 + gap(scale)) {
+                int node = (int) (e >>> maxK);
+                int entry = (int) (e & ((1L << maxK) - 1));
+                nextRules[(int) (base + (long) node * words + (entry >>> 6))] ^= 1L << entry;
+            }
+        }
+
+        if (topologyMutation > 0) {
+            for (int i = 0; i < size; i++) {
+                if (rand.nextDouble() < topologyMutation) {
+                    mutateInputs((child * size + i) * maxK);
+                }
+            }
+        }
+    }
+
+    private long gap(double scale) {
+        return scale == 0 ? 0 : (long) (Math.log(1 - rand.nextDouble()) * scale);
+    }
+
+    //Rewires, adds or removes one input of a node
+    private void mutateInputs(int slot) {
+        int used = 0;
+        for (int j = 0; j < maxK; j++) {
+            if (nextTopology[slot + j] >= 0) used++;
+        }
+
+        int choice = rand.nextInt(3);
+
+        if (choice == 1 && used < maxK) {
+            for (int j = 0; j < maxK; j++) {
+                if (nextTopology[slot + j] < 0) {
+                    nextTopology[slot + j] = rand.nextInt(size);
+                    return;
+                }
+            }
+        }
+
+        if (used == 0) return;
+
+        //Picks the r-th used slot
+        int r = rand.nextInt(used);
+        int j = 0;
+        for (; j < maxK; j++) {
+            if (nextTopology[slot + j] >= 0 && r-- == 0) break;
+        }
+
+        nextTopology[slot + j] = choice == 2 ? -1 : rand.nextInt(size);
+    }
+
+    /* Getter Methods */
+
+    //Compiles one individual, only the first 2^k entries of each table are used
+    public NetworkDefinition getDefinition(int p) {
+        ensurePopulation();
+
+        int[] offsets = new int[size + 1];
+        int[] tableOffsets = new int[size + 1];
+
+        for (int i = 0; i < size; i++) {
+            int degree = 0;
+            for (int j = 0; j < maxK; j++) {
+                if (topology[(p * size + i) * maxK + j] >= 0) degree++;
+            }
+
+            offsets[i + 1] = offsets[i] + degree;
+            tableOffsets[i + 1] = tableOffsets[i] + PackedRule.wordCount(degree);
+        }
+
+        int[] inputs = new int[offsets[size]];
+        long[] tables = new long[tableOffsets[size]];
+
+        for (int i = 0; i < size; i++) {
+            int index = offsets[i];
+            for (int j = 0; j < maxK; j++) {
+                int input = topology[(p * size + i) * maxK + j];
+                if (input >= 0) inputs[index++] = input;
+            }
+
+            int degree = offsets[i + 1] - offsets[i];
+            if (degree == 0) continue;
+
+            System.arraycopy(rules, (p * size + i) * words, tables, tableOffsets[i], PackedRule.wordCount(degree));
+
+            if (degree < 6) {
+                tables[tableOffsets[i]] &= (1L << (1 << degree)) - 1;
+            }
+        }
+
+        return new NetworkDefinition(offsets, inputs, tableOffsets, tables);
+    }
+
+    public int[][] getTopology(int p) {
+        ensurePopulation();
+
+        int[][] t = new int[size][maxK];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(topology, (p * size + i) * maxK, t[i], 0, maxK);
+        }
+        return t;
+    }
+
+    public byte[][] getRules(int p) {
+        ensurePopulation();
+
+        byte[][] r = new byte[size][1 << maxK];
+        for (int i = 0; i < size; i++) {
+            int block = (p * size + i) * words;
+            for (int e = 0; e < r[i].length; e++) {
+                r[i][e] = (byte) (rules[block + (e >>> 6)] >>> e & 1);
+            }
+        }
+        return r;
+    }
+
+    //Fitness of the current population, valid after evolve
+    public double getFitness(int p) {
+        return fitness[p];
+    }
+
+    public int getBest() {
+        int best = 0;
+        for (int p = 1; p < population; p++) {
+            if (fitness[p] > fitness[best]) best = p;
+        }
+        return best;
+    }
+
+    public double getBestFitness() {
+        return fitness[getBest()];
+    }
+
+    public double getMeanFitness() {
+        double total = 0;
+        for (double f : fitness) {
+            total += f;
+        }
+        return total / population;
+    }
+
+    public BooleanNetwork getNetwork(int p) {
+        return new BooleanNetwork().setNetwork(getTopology(p)).setRules(getRules(p));
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public int getPopulation() {
+        return population;
+    }
+}
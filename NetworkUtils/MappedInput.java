@@ -0,0 +1,112 @@
+package NetworkUtils;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+//Little endian reader over a file mapped in windows of up to 1GB
+class MappedInput {
+
+    private static final long WINDOW = 1 << 30;
+
+    final FileChannel channel;
+    final long length;
+
+    MappedByteBuffer buffer;
+    long base;
+
+    MappedInput(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.length = channel.size();
+        map(0);
+    }
+
+    private void map(long position) throws IOException {
+        base = position;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, length - position));
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void require(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) return;
+
+        long position = position();
+        if (length - position < bytes) {
+            throw new IOException("File is truncated at byte " + position);
+        }
+        map(position);
+    }
+
+    long position() {
+        return base + buffer.position();
+    }
+
+    //Bytes left after the current position
+    long remaining() {
+        return length - position();
+    }
+
+    //Moves to an absolute file position, remapping only when it is outside the current window
+    void seek(long position) throws IOException {
+        if (position < 0 || position > length) {
+            throw new IOException("Position " + position + " is outside the file");
+        }
+
+        if (position >= base && position - base <= buffer.limit()) {
+            buffer.position((int) (position - base));
+        } else {
+            map(position);
+        }
+    }
+
+    byte getByte() throws IOException {
+        require(1);
+        return buffer.get();
+    }
+
+    int getInt() throws IOException {
+        require(4);
+        return buffer.getInt();
+    }
+
+    long getLong() throws IOException {
+        require(8);
+        return buffer.getLong();
+    }
+
+    int[] getInts(int[] values) throws IOException {
+        int offset = 0;
+        while (offset < values.length) {
+            require(4);
+            int n = Math.min(values.length - offset, buffer.remaining() / 4);
+            buffer.asIntBuffer().get(values, offset, n);
+            buffer.position(buffer.position() + n * 4);
+            offset += n;
+        }
+        return values;
+    }
+
+    long[] getLongs(long[] values) throws IOException {
+        int offset = 0;
+        while (offset < values.length) {
+            require(8);
+            int n = Math.min(values.length - offset, buffer.remaining() / 8);
+            buffer.asLongBuffer().get(values, offset, n);
+            buffer.position(buffer.position() + n * 8);
+            offset += n;
+        }
+        return values;
+    }
+
+    byte[] getBytes(byte[] values) throws IOException {
+        int offset = 0;
+        while (offset < values.length) {
+            require(1);
+            int n = Math.min(values.length - offset, buffer.remaining());
+            buffer.get(values, offset, n);
+            offset += n;
+        }
+        return values;
+    }
+}
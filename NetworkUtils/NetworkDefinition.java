@@ -0,0 +1,220 @@
+package NetworkUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**     Immutable flat array form of a network's topology and rules. Inputs are stored in CSR layout
+ *  (offsets/inputs) and rule tables are bit packed, one word aligned block per node. A definition
+ *  holds no state, so one instance can be shared by any number of CompiledNetwork handles, each
+ *  simulating it on its own thread.
+ */
+
+public class NetworkDefinition {
+
+    //Number of nodes
+    final int size;
+
+    //Inputs of node i are inputs[offsets[i]] .. inputs[offsets[i+1]-1], first input is the most significant bit
+    final int[] offsets;
+    final int[] inputs;
+
+    //Rule table of node i starts at word tableOffsets[i], entry j is bit (j & 63) of word j >>> 6.
+    //Nodes sharing a packed rule instance point at the same words
+    final int[] tableOffsets;
+    final long[] tables;
+
+    //Takes ownership of arrays already in compiled form
+    NetworkDefinition(int[] offsets, int[] inputs, int[] tableOffsets, long[] tables) {
+        this.size = offsets.length - 1;
+        this.offsets = offsets;
+        this.inputs = inputs;
+        this.tableOffsets = tableOffsets;
+        this.tables = tables;
+    }
+
+    //Compiles the topology and rules of an object model network
+    public NetworkDefinition(BooleanNetwork network) {
+        this(network.getNetwork());
+    }
+
+    public NetworkDefinition(Node[] network) {
+        size = network.length;
+        offsets = new int[size + 1];
+
+        for (int i = 0; i < size; i++) {
+            offsets[i + 1] = offsets[i] + network[i].getNeighbors().size();
+        }
+
+        inputs = new int[offsets[size]];
+        TruthTable[] rules = new TruthTable[size];
+
+        for (int i = 0; i < size; i++) {
+            ArrayList<Node> neighbors = network[i].getNeighbors();
+
+            for (int j = 0; j < neighbors.size(); j++) {
+                inputs[offsets[i] + j] = neighbors.get(j).getID();
+            }
+
+            rules[i] = network[i].getTruthTable();
+        }
+
+        tableOffsets = new int[size + 1];
+        tables = packTables(rules);
+    }
+
+    //Compiles a topology in the form [node][inputs] (-1 entries are unused) with one rule table per node
+    public NetworkDefinition(int[][] topology, byte[][] rules) {
+        size = topology.length;
+        offsets = new int[size + 1];
+
+        for (int i = 0; i < size; i++) {
+            int k = 0;
+            for (int j = 0; j < topology[i].length; j++) {
+                if (topology[i][j] >= 0) k++;
+            }
+            offsets[i + 1] = offsets[i] + k;
+        }
+
+        inputs = new int[offsets[size]];
+
+        for (int i = 0; i < size; i++) {
+            int index = offsets[i];
+            for (int j = 0; j < topology[i].length; j++) {
+                if (topology[i][j] >= 0) inputs[index++] = topology[i][j];
+            }
+        }
+
+        tableOffsets = new int[size + 1];
+        tables = packTables(rules);
+    }
+
+    //Packs the first 2^k entries of each rule table. Nodes without inputs always evaluate to zero
+    private long[] packTables(byte[][] rules) {
+        for (int i = 0; i < size; i++) {
+            tableOffsets[i + 1] = tableOffsets[i] + PackedRule.wordCount(degree(i));
+        }
+
+        long[] packed = new long[tableOffsets[size]];
+
+        for (int i = 0; i < size; i++) {
+            packBytes(packed, i, rules[i]);
+        }
+
+        return packed;
+    }
+
+    //As above, packed rules are copied word by word and the same instance is stored only once
+    private long[] packTables(TruthTable[] rules) {
+        IdentityHashMap<TruthTable, Integer> shared = new IdentityHashMap<>();
+        int words = 0;
+
+        for (int i = 0; i < size; i++) {
+            int k = degree(i);
+
+            if (k > 0 && rules[i] instanceof PackedRule && ((PackedRule) rules[i]).connections == k) {
+                Integer offset = shared.putIfAbsent(rules[i], words);
+
+                if (offset != null) {
+                    tableOffsets[i] = offset;
+                    continue;
+                }
+            }
+
+            tableOffsets[i] = words;
+            words += PackedRule.wordCount(k);
+        }
+
+        tableOffsets[size] = words;
+        long[] packed = new long[words];
+
+        for (int i = 0; i < size; i++) {
+            int k = degree(i);
+
+            if (k > 0 && rules[i] instanceof PackedRule && ((PackedRule) rules[i]).connections >= k) {
+                checkDegree(i, k);
+                long[] table = ((PackedRule) rules[i]).words;
+
+                for (int w = 0; w < PackedRule.wordCount(k); w++) {
+                    packed[tableOffsets[i] + w] = table[w];
+                }
+
+                if (k < 6) {
+                    packed[tableOffsets[i]] &= (1L << (1 << k)) - 1;
+                }
+            } else {
+                packBytes(packed, i, rules[i] == null ? null
+                        : rules[i] instanceof Rule ? ((Rule) rules[i]).getRuleTable() : rules[i].toBytes());
+            }
+        }
+
+        return packed;
+    }
+
+    private void packBytes(long[] packed, int i, byte[] rule) {
+        int k = degree(i);
+        if (k == 0) return;
+
+        checkDegree(i, k);
+        int entries = 1 << k;
+
+        if (rule == null || rule.length < entries) {
+            throw new IllegalArgumentException("Rule table of node " + i + " has fewer than 2^" + k + " entries");
+        }
+
+        for (int j = 0; j < entries; j++) {
+            if (rule[j] > 0) packed[tableOffsets[i] + (j >>> 6)] |= 1L << j;
+        }
+    }
+
+    private static void checkDegree(int i, int k) {
+        if (k > 30) {
+            throw new IllegalArgumentException("Node " + i + " has " + k + " inputs, at most 30 are supported");
+        }
+    }
+
+    //New simulation handle with every node off
+    public CompiledNetwork newHandle() {
+        return new CompiledNetwork(this);
+    }
+
+    //Frozen node and constant propagation, see NetworkReduction
+    public NetworkReduction reduce() {
+        return new NetworkReduction(this);
+    }
+
+    /* Getter Methods */
+
+    //Rule table entry of a node for an input index, first input is the most significant bit
+    public int getRule(int node, int index) {
+        return (int) (tables[tableOffsets[node] + (index >>> 6)] >>> index & 1);
+    }
+
+    public int[] getInputs(int node) {
+        return Arrays.copyOfRange(inputs, offsets[node], offsets[node + 1]);
+    }
+
+    public int getDegree(int node) {
+        return degree(node);
+    }
+
+    int degree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    public int getMaxDegree() {
+        int maxk = 0;
+        for (int i = 0; i < size; i++) {
+            maxk = Math.max(maxk, degree(i));
+        }
+        return maxk;
+    }
+
+    public int getEdgeCount() {
+        return inputs.length;
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
@@ -1,6 +1,9 @@
 package NetworkUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.DoubleFunction;
 import java.util.function.IntSupplier;
@@ -18,60 +21,91 @@ public class NetworkDistribution {
     }
 
     public static ArrayList<SD> getNetwork(IntSupplier distribution, int n, int maxk){
+        int[][] edges = getEdges(distribution, n, maxk);
 
-        //Generate a degree sequence with a total sum less than n * maxk (for proper input distribution)
-        int[] degrees = createDegreeSequence(distribution,n,n * maxk);
+        ArrayList<SD> list = new ArrayList<>(edges[0].length);
 
-        ArrayList<SD> list = new ArrayList<>();
+        for (int i = 0; i < edges[0].length; i++) {
+            list.add(new SD(edges[0][i], edges[1][i]));
+        }
+
+        return list;
+    }
+
+    public static int[][] getEdges(double s, int n, int maxk){
+        return getEdges(getDistributionSupplier(s,n * maxk),n,maxk);
+    }
 
-        int node = 0;
+    //Configuration model over primitive arrays, returns {sources, destinations} for
+    //BooleanNetwork.setNetwork(int[], int[], int). Out-degrees are drawn from the distribution and, as
+    //in getNetwork before, handed to nodes in ascending order by id. Every stub goes to a uniformly
+    //random node whose input degree is still below maxk
+    public static int[][] getEdges(IntSupplier distribution, int n, int maxk){
+        long start = System.nanoTime();
+        int[] degrees = new int[n];
+        int edges = createOutDegrees(distribution, degrees, n * maxk);
+        Arrays.sort(degrees);
 
-        //Create list of degree stubs with the source node only set
-        for (int i = 0; i < degrees.length; i++) {
+        int[] src = new int[edges];
+        int[] dst = new int[edges];
+
+        int e = 0;
+        for (int i = 0; i < n; i++) {
             for (int j = 0; j < degrees[i]; j++) {
-                for (int k = 0; k < (i+1); k++) {
-                    SD stub = new SD();
-                    stub.setSource(node);
-                    list.add(stub);
-                }
-                node++;
+                src[e++] = i;
             }
         }
 
-        //List of nodes whose input degree is less than maxk
-        ArrayList<Integer> set = new ArrayList<>();
+        //Nodes whose input degree is less than maxk, full nodes are swapped out of the open range
+        int[] open = new int[n];
+        int count = n;
 
         for (int i = 0; i < n; i++) {
-            set.add(i);
+            open[i] = i;
         }
 
-        //This should be faster than iterating over the list each time...
-        int[] inputs = new int[n];
+        int[] inputs = degrees; //out-degrees are no longer needed
+        Arrays.fill(inputs, 0);
+
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
 
-        //Create poissionian input distribution
-        for(int i = 0; i < list.size(); i++){
+        for (int i = 0; i < edges; i++) {
+            int index = rand.nextInt(count);
+            int node = open[index];
 
-            int index = ThreadLocalRandom.current().nextInt(set.size());
-            node = set.get(index);
+            dst[i] = node;
 
-            if (inputs[node] >= maxk) {
-                set.remove(index);
-                i--;
-            } else {
-                inputs[node]++;
-                list.get(i).setDestination(node);
+            if (++inputs[node] == maxk) {
+                open[index] = open[--count];
             }
         }
 
-        return list;
+        NetworkMetrics.timed("getEdges", start);
+        return new int[][]{src, dst};
+    }
+
+    //Fills degrees with one draw per node, redrawing in place until the total is at most cap
+    public static int createOutDegrees(IntSupplier distribution, int[] degrees, int cap){
+        long total;
+
+        do {
+            total = 0;
+
+            for (int i = 0; i < degrees.length; i++) {
+                degrees[i] = distribution.getAsInt();
+                total += degrees[i];
+            }
+        } while (total > cap);
+
+        return (int) total;
     }
 
     public static int[] createDegreeSequence(IntSupplier distribution,int n, int cap){
 
-        int[] degrees;
+        int[] degrees = new int[cap]; //setting cutoff to n * maxk
 
         do  {
-            degrees = new int[cap]; //setting cutoff to n * maxk
+            Arrays.fill(degrees, 0);
 
             //Fill array of degrees with proper values
             for (int i = 0; i < n; i++) {
@@ -94,23 +128,12 @@ public class NetworkDistribution {
     }
 
     public static IntSupplier getDistributionSupplier(double lambda,int cap){
-        return getDistributionSupplier(distribution(getPowerLaw(lambda),cap));
+        return AliasSampler.powerLaw(lambda, cap);
     }
 
+    //Constant time sampler over the steps of a cumulative distribution
     public static IntSupplier getDistributionSupplier(double[] dist){
-        double max = dist[dist.length-1];
-
-        return () -> {
-            double r = ThreadLocalRandom.current().nextDouble(max);
-
-            for(int i = 0; i < dist.length; i++){
-                if(r < dist[i]) return i+1;
-            }
-
-            System.out.println("Number outside distribution range");
-
-            return -1;
-        };
+        return AliasSampler.fromCumulative(dist);
     }
 
     public static double[] distribution(DoubleFunction<Double> dist, int cap){
@@ -127,7 +150,15 @@ public class NetworkDistribution {
     }
 
     public static DoubleFunction<Double> getPowerLaw(double s) {
-        return x -> pow(x,-s) / zeta(s,10000);
+        double zeta = zeta(s);
+        return x -> pow(x,-s) / zeta;
+    }
+
+    //Normalisation constants by exponent, computed once per s
+    private static final Map<Double, Double> zetas = new ConcurrentHashMap<>();
+
+    public static double zeta(double s) {
+        return zetas.computeIfAbsent(s, e -> zeta(e, 10000));
     }
 
     //Riemann Zeta function, used for normalizing power law distributions
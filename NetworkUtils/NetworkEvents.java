@@ -0,0 +1,73 @@
+package NetworkUtils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**     Flight Recorder events written by NetworkMetrics. They show up under "NetworkUtils" in JMC
+ *  next to GC and CPU samples. Events are only created while metrics are enabled and a recording
+ *  has them enabled.
+ */
+
+public final class NetworkEvents {
+
+    private NetworkEvents() {}
+
+    @Name("NetworkUtils.Step")
+    @Label("Update Step")
+    @Category("NetworkUtils")
+    static final class Step extends Event {
+        @Label("Scheme")
+        String scheme;
+
+        @Label("Node Evaluations")
+        long evaluations;
+
+        @Label("Flips")
+        int flips;
+
+        @Label("Step Time")
+        @Timespan
+        long time;
+    }
+
+    @Name("NetworkUtils.Cascade")
+    @Label("Cascade Frontier")
+    @Category("NetworkUtils")
+    static final class Cascade extends Event {
+        @Label("Frontier Size")
+        int frontier;
+
+        @Label("Next Frontier Size")
+        int next;
+    }
+
+    @Name("NetworkUtils.Attractor")
+    @Label("Attractor Search")
+    @Category("NetworkUtils")
+    static final class Attractor extends Event {
+        @Label("Transient")
+        int transientLength;
+
+        @Label("Period")
+        int period;
+
+        @Label("Search Time")
+        @Timespan
+        long time;
+    }
+
+    @Name("NetworkUtils.Timing")
+    @Label("Generation or IO")
+    @Category("NetworkUtils")
+    static final class Timing extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Time")
+        @Timespan
+        long time;
+    }
+}
@@ -1,11 +1,12 @@
 package NetworkUtils;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.List;
 
@@ -16,67 +17,133 @@ import java.util.List;
 
 public class NetworkIO {
 
-    //Reads in a network topology in the agreed upon format
-    public static int[][] readTopology(Path network){
+    private static final int BUFFER = 1 << 16;
 
-        if (Files.notExists(network)) {
-            System.out.println("File does not exist");
-            return null;
+    //Reads in a network topology in the agreed upon format, use parseTopology to handle IOException
+    @Deprecated
+    public static int[][] readTopology(Path network){
+        try {
+            return parseTopology(network);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
+
 
+    //Reads in a rule table, use parseRules to handle IOException
+    @Deprecated
+    public static byte[][] readRules(Path ruletable) {
         try {
-            //Read lines from network file and create topology
-            List<String> lines = Files.readAllLines(network);
-            int[][] topology = new int[lines.size()][];
+            return parseRules(ruletable);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //Streams a topology file, one line of space separated 1-indexed inputs per node
+    public static int[][] parseTopology(Path network) throws IOException {
+        long start = System.nanoTime();
+
+        try (Input in = new Input(network)) {
+            int[][] topology = new int[64][];
+            int rows = 0;
+
+            int[] row = new int[16];
 
-            for (int i = 0; i < lines.size(); i++) {
-                String[] adj = lines.get(i).split(" ");
+            while (in.peek() != -1) {
+                int length = 0;
+                int c;
 
-                topology[i] = new int[adj.length];
+                while ((c = in.peek()) != '\n' && c != -1) {
+                    if (c == ' ' || c == '\t' || c == '\r') {
+                        in.next();
+                        continue;
+                    }
+
+                    if (length == row.length) {
+                        row = Arrays.copyOf(row, length * 2);
+                    }
 
-                for(int j = 0; j < adj.length; j++){
                     //Matlab is not zero indexed - must subtract one
-                    topology[i][j] = Integer.parseInt(adj[j]) - 1;
+                    row[length++] = in.nextInt() - 1;
                 }
-            }
+                in.next();
 
-            return topology;
+                if (rows == topology.length) {
+                    topology = Arrays.copyOf(topology, rows * 2);
+                }
+                topology[rows++] = Arrays.copyOf(row, length);
+            }
 
-        } catch (IOException e) {
-            e.printStackTrace();
+            NetworkMetrics.timed("parseTopology", start);
+            return Arrays.copyOf(topology, rows);
         }
+    }
 
-        System.out.println("Something went very wrong...");
+    //Streams a rule table. Line j holds entry j of every rule, the rule of node i is in column 2i,
+    //a rule ends at the first line with a space (or nothing) in its column
+    public static byte[][] parseRules(Path ruletable) throws IOException {
+        long start = System.nanoTime();
+
+        try (Input in = new Input(ruletable)) {
+            //The first line gives the number of nodes
+            int width = 0;
+            while (in.peek() != '\n' && in.peek() != '\r' && in.peek() != -1) {
+                in.next();
+                width++;
+            }
 
-        return null;
-    }
+            if (width == 0) {
+                throw new IOException(ruletable + ": first line is empty");
+            }
 
+            int size = (width + 1) / 2;
 
-    public static byte[][] readRules(Path ruletable) {
+            byte[][] rules = new byte[size][16];
+            int[] lengths = new int[size];
+            boolean[] ended = new boolean[size];
 
-        if (Files.notExists(ruletable)) {
-            System.out.println("File does not exist");
-            return null;
-        }
+            in.rewind();
 
-        byte[][] ruleset = null;
+            for (int line = 0; in.peek() != -1; line++) {
+                int column = 0;
+                int c;
 
-        try {
-            List<String> rules = Files.readAllLines(ruletable);
+                while ((c = in.next()) != '\n' && c != -1) {
+                    if (c == '\r') continue;
 
-            int length = (rules.get(0).length() + 1) / 2;
+                    if ((column & 1) == 0 && column / 2 < size) {
+                        int node = column / 2;
 
-            ruleset = new byte[length][];
+                        if (c == ' ') {
+                            ended[node] = true;
+                        } else if (!ended[node]) {
+                            if (c != '0' && c != '1') {
+                                throw in.error("expected 0, 1 or space for node " + (node + 1));
+                            }
 
-            for(int i = 0; i < length; i++){
-                ruleset[i] = getrule(rules,i*2);
+                            if (lengths[node] == rules[node].length) {
+                                rules[node] = Arrays.copyOf(rules[node], lengths[node] * 2);
+                            }
+                            rules[node][lengths[node]++] = (byte) (c - '0');
+                        }
+                    }
+                    column++;
+                }
+
+                //Rules whose column is missing from this line have ended too
+                for (int node = (column + 1) / 2; node < size; node++) {
+                    ended[node] = true;
+                }
             }
 
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+            for (int i = 0; i < size; i++) {
+                rules[i] = Arrays.copyOf(rules[i], lengths[i]);
+            }
 
-        return ruleset;
+            NetworkMetrics.timed("parseRules", start);
+            return rules;
+        }
     }
 
     public static byte[] getrule(List<String> rules, int index){
@@ -97,12 +164,185 @@ public class NetworkIO {
 
 
 
+    //Buffered byte reader over a file channel that tracks line and column for error messages
+    private static class Input implements AutoCloseable {
+        final Path path;
+        final FileChannel channel;
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER);
+
+        int line = 1, column = 1;
+
+        Input(Path path) throws IOException {
+            if (Files.notExists(path)) {
+                throw new IOException(path + ": file does not exist");
+            }
+
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            buffer.flip();
+        }
+
+        int peek() throws IOException {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                int read;
+                do {
+                    read = channel.read(buffer);
+                } while (read == 0);
+                buffer.flip();
+
+                if (read < 0) return -1;
+            }
+            return buffer.get(buffer.position()) & 0xFF;
+        }
+
+        int next() throws IOException {
+            int c = peek();
+            if (c == -1) return -1;
+
+            buffer.get();
+            if (c == '\n') {
+                line++;
+                column = 1;
+            } else {
+                column++;
+            }
+            return c;
+        }
+
+        //Parses a decimal int at the current position
+        int nextInt() throws IOException {
+            boolean negative = peek() == '-';
+            if (negative) next();
+
+            int c = peek();
+            if (c < '0' || c > '9') {
+                throw error("expected a number");
+            }
+
+            long value = 0;
+            while ((c = peek()) >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE) {
+                    throw error("number out of range");
+                }
+                next();
+            }
+
+            if (c != ' ' && c != '\t' && c != '\r' && c != '\n' && c != -1) {
+                throw error("unexpected character '" + (char) c + "'");
+            }
+
+            return (int) (negative ? -value : value);
+        }
+
+        void rewind() throws IOException {
+            channel.position(0);
+            buffer.clear().flip();
+            line = 1;
+            column = 1;
+        }
+
+        IOException error(String message) {
+            return new IOException(path + ":" + line + ":" + column + ": " + message);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    //Writes a topology in the format parseTopology reads, use the Path overload to handle IOException
     public static void writeTopology(int[][] topology, String path) {
+        try {
+            writeTopology(topology, Path.of(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //One line of space separated 1-indexed inputs per node
+    public static void writeTopology(int[][] topology, Path path) throws IOException {
+        long start = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            ChannelOutput out = new ChannelOutput(channel);
+
+            for (int[] row : topology) {
+                for (int j = 0; j < row.length; j++) {
+                    if (j > 0) out.putByte((byte) ' ');
+                    putDecimal(out, row[j] + 1);
+                }
+                out.putByte((byte) '\n');
+            }
 
+            out.flush();
+        }
+
+        NetworkMetrics.timed("writeTopology", start);
     }
 
+    //Never wrote anything and has nowhere to write to, use writeRules(byte[][], Path)
+    @Deprecated
     public static void writeRules(int[][] test){
+        throw new UnsupportedOperationException("writeRules(int[][]) has no destination, use writeRules(byte[][], Path)");
+    }
+
+    //Writes rule tables in the format parseRules reads: line j holds entry j of every rule in
+    //column 2i, with a space once the rule of node i has ended. Entries must be 0 or 1
+    public static void writeRules(byte[][] rules, Path path) throws IOException {
+        long start = System.nanoTime();
+
+        int lines = 0;
+        for (int i = 0; i < rules.length; i++) {
+            if (rules[i] == null) continue;
+
+            for (byte b : rules[i]) {
+                if (b != 0 && b != 1) {
+                    throw new IllegalArgumentException("Rule of node " + i + " has an entry other than 0 or 1");
+                }
+            }
+            lines = Math.max(lines, rules[i].length);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            ChannelOutput out = new ChannelOutput(channel);
+
+            for (int line = 0; line < lines; line++) {
+                for (int i = 0; i < rules.length; i++) {
+                    if (i > 0) out.putByte((byte) ' ');
 
+                    byte[] rule = rules[i];
+                    out.putByte(rule != null && line < rule.length ? (byte) ('0' + rule[line]) : (byte) ' ');
+                }
+                out.putByte((byte) '\n');
+            }
+
+            out.flush();
+        }
+
+        NetworkMetrics.timed("writeRules", start);
+    }
+
+    private static void putDecimal(ChannelOutput out, int value) throws IOException {
+        if (value < 0) {
+            out.putByte((byte) '-');
+            value = -value;
+        }
+
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+
+        for (; divisor > 0; divisor /= 10) {
+            out.putByte((byte) ('0' + value / divisor % 10));
+        }
     }
 
 }
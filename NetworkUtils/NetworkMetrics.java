@@ -0,0 +1,243 @@
+package NetworkUtils;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.EventType;
+
+/**     Opt-in counters for simulation runs. A BooleanNetwork only records into metrics set with
+ *  setMetrics, so a disabled network pays one null check per step. The generators in Networks,
+ *  NetworkDistribution.getEdges and the IO methods record into the instance given to setGlobal,
+ *  if any. Recording does not lock, so one instance can be shared by networks on many threads.
+ *  Every recording is also written as a Flight Recorder event (see NetworkEvents) while a
+ *  recording has that event enabled.
+ *
+ *  Frontier histogram bucket b counts cascade steps whose frontier had between 2^(b-1) and
+ *  2^b - 1 nodes (bucket 0 is the empty frontier).
+ */
+
+public class NetworkMetrics {
+
+    private static volatile NetworkMetrics global;
+
+    //Checked before an event is allocated, so metrics without a recording create no events
+    private static final EventType STEP = EventType.getEventType(NetworkEvents.Step.class);
+    private static final EventType CASCADE = EventType.getEventType(NetworkEvents.Cascade.class);
+    private static final EventType ATTRACTOR = EventType.getEventType(NetworkEvents.Attractor.class);
+    private static final EventType TIMING = EventType.getEventType(NetworkEvents.Timing.class);
+
+    private final LongAdder steps = new LongAdder();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder flips = new LongAdder();
+    private final LongAdder stepNanos = new LongAdder();
+
+    private final LongAdder[] frontier = new LongAdder[33];
+    private final LongAccumulator maxFrontier = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder attractors = new LongAdder();
+    private final LongAdder transients = new LongAdder();
+    private final LongAccumulator maxTransient = new LongAccumulator(Math::max, 0);
+
+    //Operation name to {count, total nanos}
+    private final Map<String, LongAdder[]> timings = new ConcurrentHashMap<>();
+
+    public NetworkMetrics() {
+        for (int b = 0; b < frontier.length; b++) {
+            frontier[b] = new LongAdder();
+        }
+    }
+
+    //Metrics for generators and IO that are not tied to a network, null to disable
+    public static void setGlobal(NetworkMetrics metrics) {
+        global = metrics;
+    }
+
+    public static NetworkMetrics getGlobal() {
+        return global;
+    }
+
+    //For static operations, records the time since start into the global metrics
+    static void timed(String operation, long start) {
+        NetworkMetrics metrics = global;
+        if (metrics != null) {
+            metrics.time(operation, start);
+        }
+    }
+
+    /* Recording */
+
+    void step(String scheme, long evaluations, int flips, long start) {
+        long nanos = System.nanoTime() - start;
+
+        this.steps.increment();
+        this.evaluations.add(evaluations);
+        this.flips.add(flips);
+        this.stepNanos.add(nanos);
+
+        if (STEP.isEnabled()) {
+            NetworkEvents.Step event = new NetworkEvents.Step();
+            if (event.shouldCommit()) {
+                event.scheme = scheme;
+                event.evaluations = evaluations;
+                event.flips = flips;
+                event.time = nanos;
+                event.commit();
+            }
+        }
+    }
+
+    void cascade(int size, int next) {
+        frontier[32 - Integer.numberOfLeadingZeros(size)].increment();
+        maxFrontier.accumulate(size);
+
+        if (CASCADE.isEnabled()) {
+            NetworkEvents.Cascade event = new NetworkEvents.Cascade();
+            if (event.shouldCommit()) {
+                event.frontier = size;
+                event.next = next;
+                event.commit();
+            }
+        }
+    }
+
+    void attractor(Attractor attractor, long start) {
+        long nanos = System.nanoTime() - start;
+
+        if (attractor != null) {
+            attractors.increment();
+            transients.add(attractor.getTransient());
+            maxTransient.accumulate(attractor.getTransient());
+        }
+
+        if (ATTRACTOR.isEnabled()) {
+            NetworkEvents.Attractor event = new NetworkEvents.Attractor();
+            if (event.shouldCommit()) {
+                event.transientLength = attractor == null ? -1 : attractor.getTransient();
+                event.period = attractor == null ? -1 : attractor.getPeriod();
+                event.time = nanos;
+                event.commit();
+            }
+        }
+    }
+
+    void time(String operation, long start) {
+        long nanos = System.nanoTime() - start;
+
+        LongAdder[] timing = timings.computeIfAbsent(operation, o -> new LongAdder[]{new LongAdder(), new LongAdder()});
+        timing[0].increment();
+        timing[1].add(nanos);
+
+        if (TIMING.isEnabled()) {
+            NetworkEvents.Timing event = new NetworkEvents.Timing();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.time = nanos;
+                event.commit();
+            }
+        }
+    }
+
+    //Not atomic: counts recorded while resetting may be kept in some counters and not in others
+    public NetworkMetrics reset() {
+        steps.reset();
+        evaluations.reset();
+        flips.reset();
+        stepNanos.reset();
+        for (LongAdder bucket : frontier) {
+            bucket.reset();
+        }
+        maxFrontier.reset();
+        attractors.reset();
+        transients.reset();
+        maxTransient.reset();
+        timings.clear();
+        return this;
+    }
+
+    /* Getter Methods */
+
+    public long getSteps() {
+        return steps.sum();
+    }
+
+    public long getEvaluations() {
+        return evaluations.sum();
+    }
+
+    public double getEvaluationsPerSecond() {
+        long nanos = stepNanos.sum();
+        return nanos == 0 ? 0 : evaluations.sum() * 1e9 / nanos;
+    }
+
+    public long getFlips() {
+        return flips.sum();
+    }
+
+    public long getStepNanos() {
+        return stepNanos.sum();
+    }
+
+    public long[] getFrontierHistogram() {
+        long[] histogram = new long[frontier.length];
+        for (int b = 0; b < frontier.length; b++) {
+            histogram[b] = frontier[b].sum();
+        }
+        return histogram;
+    }
+
+    public long getMaxFrontier() {
+        return maxFrontier.get();
+    }
+
+    public double getMeanTransient() {
+        long count = attractors.sum();
+        return count == 0 ? 0 : (double) transients.sum() / count;
+    }
+
+    public int getMaxTransient() {
+        return (int) maxTransient.get();
+    }
+
+    public long getTimingCount(String operation) {
+        LongAdder[] timing = timings.get(operation);
+        return timing == null ? 0 : timing[0].sum();
+    }
+
+    public long getTimingNanos(String operation) {
+        LongAdder[] timing = timings.get(operation);
+        return timing == null ? 0 : timing[1].sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(String.format("steps %d, evaluations %d (%.3g/s), flips %d%n",
+                getSteps(), getEvaluations(), getEvaluationsPerSecond(), getFlips()));
+
+        long max = getMaxFrontier();
+        if (max > 0) {
+            long[] histogram = getFrontierHistogram();
+
+            sb.append("frontier histogram (max ").append(max).append("):");
+            for (int b = 0; b < histogram.length; b++) {
+                if (histogram[b] > 0) sb.append(' ').append(b == 0 ? 0 : 1L << (b - 1)).append("+: ").append(histogram[b]);
+            }
+            sb.append(System.lineSeparator());
+        }
+
+        if (attractors.sum() > 0) {
+            sb.append(String.format("attractors %d, mean transient %.1f, max transient %d%n",
+                    attractors.sum(), getMeanTransient(), getMaxTransient()));
+        }
+
+        for (Map.Entry<String, LongAdder[]> e : new TreeMap<>(timings).entrySet()) {
+            sb.append(String.format("%s: %d calls, %.3f ms%n", e.getKey(), e.getValue()[0].sum(), e.getValue()[1].sum() / 1e6));
+        }
+
+        return sb.toString();
+    }
+}
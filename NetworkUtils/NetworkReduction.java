@@ -0,0 +1,350 @@
+package NetworkUtils;
+
+import java.util.Arrays;
+
+/**     Shrinks a network to the core that decides its attractors. Inputs a rule does not depend on
+ *  are stripped, nodes whose rule became constant (including nodes without inputs, which always
+ *  evaluate to zero) are frozen and their value is substituted into the rules they feed, and nodes
+ *  that feed no remaining node are removed, repeating until nothing changes.
+ *
+ *  Frozen and removed nodes follow the core after a few steps, so the reduced network has exactly
+ *  the attractors of the original, while transients may be shorter. expandAttractor rebuilds the
+ *  full states of an attractor found on the reduced network from its cycle history.
+ */
+
+public class NetworkReduction {
+
+    private static final byte CORE = 0, FROZEN = 1, REMOVED = 2;
+
+    final NetworkDefinition original;
+    final NetworkDefinition reduced;
+
+    //Reduced node r is original node originalIds[r], reducedIds is -1 for nodes outside the core
+    final int[] originalIds;
+    final int[] reducedIds;
+
+    //0 or 1 for frozen nodes, -1 otherwise
+    final byte[] frozen;
+
+    //Removed nodes, last removed first, with their inputs (original ids) and rules when removed
+    final int[] removed;
+    final int[][] removedInputs;
+    final long[][] removedRules;
+
+    private int strippedInputs;
+
+    public NetworkReduction(BooleanNetwork network) {
+        this(new NetworkDefinition(network));
+    }
+
+    public NetworkReduction(NetworkDefinition network) {
+        long start = System.nanoTime();
+        int size = network.size;
+
+        original = network;
+        reducedIds = new int[size];
+        frozen = new byte[size];
+        Arrays.fill(frozen, (byte) -1);
+
+        //Working copy of every node's inputs and rule
+        int[][] inputs = new int[size][];
+        long[][] rules = new long[size][];
+        byte[] kind = new byte[size];
+
+        //References to each node from the inputs of core nodes
+        int[] outCount = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            inputs[i] = network.getInputs(i);
+            rules[i] = Arrays.copyOfRange(network.tables, network.tableOffsets[i],
+                    network.tableOffsets[i] + PackedRule.wordCount(inputs[i].length));
+
+            for (int src : inputs[i]) {
+                outCount[src]++;
+            }
+        }
+
+        //Nodes fed by each node in the original, so frozen values reach every rule using them
+        int[] outOffsets = new int[size + 1];
+        for (int src : network.inputs) {
+            outOffsets[src + 1]++;
+        }
+        for (int i = 0; i < size; i++) {
+            outOffsets[i + 1] += outOffsets[i];
+        }
+
+        int[] outputs = new int[network.inputs.length];
+        int[] fill = Arrays.copyOf(outOffsets, size);
+        for (int i = 0; i < size; i++) {
+            for (int src : inputs[i]) {
+                outputs[fill[src]++] = i;
+            }
+        }
+
+        //Worklist of nodes to simplify, every node starts on it
+        int[] stack = new int[size];
+        boolean[] queued = new boolean[size];
+        int top = 0;
+
+        for (int i = size - 1; i >= 0; i--) {
+            stack[top++] = i;
+            queued[i] = true;
+        }
+
+        int[] order = new int[size];
+        int removedCount = 0;
+
+        while (top > 0) {
+            int i = stack[--top];
+            queued[i] = false;
+
+            if (kind[i] != CORE) continue;
+
+            //Substitute frozen inputs and strip fictitious ones until the rule stops changing
+            boolean changed = true;
+
+            while (changed) {
+                changed = false;
+
+                for (int j = inputs[i].length - 1; j >= 0; j--) {
+                    int k = inputs[i].length;
+                    int src = inputs[i][j];
+                    int bit = k - 1 - j;
+
+                    //A substituted value can leave inputs already looked at without effect, so look again
+                    if (kind[src] == FROZEN) {
+                        rules[i] = restrict(rules[i], k, bit, frozen[src]);
+                        changed = true;
+                    } else if (Sensitivity.derivative(rules[i], 0, k, bit) == 0) {
+                        rules[i] = restrict(rules[i], k, bit, 0);
+                        strippedInputs++;
+
+                        if (--outCount[src] == 0 && !queued[src]) {
+                            stack[top++] = src;
+                            queued[src] = true;
+                        }
+                    } else {
+                        continue;
+                    }
+
+                    inputs[i] = remove(inputs[i], j);
+                }
+            }
+
+            int k = inputs[i].length;
+            double bias = Sensitivity.bias(rules[i], 0, k);
+
+            if (k == 0 || bias == 0 || bias == 1) {
+                //Every entry is equal. Nodes that never had inputs are zero, stripped ones keep entry 0
+                kind[i] = FROZEN;
+                frozen[i] = (byte) (network.degree(i) == 0 ? 0 : rules[i][0] & 1);
+
+                for (int src : inputs[i]) {
+                    if (--outCount[src] == 0 && !queued[src]) {
+                        stack[top++] = src;
+                        queued[src] = true;
+                    }
+                }
+
+                for (int o = outOffsets[i]; o < outOffsets[i + 1]; o++) {
+                    if (kind[outputs[o]] == CORE && !queued[outputs[o]]) {
+                        stack[top++] = outputs[o];
+                        queued[outputs[o]] = true;
+                    }
+                }
+            } else if (outCount[i] == 0) {
+                kind[i] = REMOVED;
+                order[removedCount++] = i;
+
+                for (int src : inputs[i]) {
+                    if (--outCount[src] == 0 && !queued[src]) {
+                        stack[top++] = src;
+                        queued[src] = true;
+                    }
+                }
+            }
+        }
+
+        //Removed nodes are expanded last removed first, their inputs are core, frozen or removed later
+        removed = new int[removedCount];
+        removedInputs = new int[removedCount][];
+        removedRules = new long[removedCount][];
+
+        for (int r = 0; r < removedCount; r++) {
+            int i = order[removedCount - 1 - r];
+            removed[r] = i;
+            removedInputs[r] = inputs[i];
+            removedRules[r] = rules[i];
+        }
+
+        int coreSize = 0;
+        for (int i = 0; i < size; i++) {
+            reducedIds[i] = kind[i] == CORE ? coreSize++ : -1;
+        }
+
+        originalIds = new int[coreSize];
+        int[] offsets = new int[coreSize + 1];
+        int[] tableOffsets = new int[coreSize + 1];
+
+        for (int i = 0; i < size; i++) {
+            if (reducedIds[i] < 0) continue;
+
+            int r = reducedIds[i];
+            originalIds[r] = i;
+            offsets[r + 1] = offsets[r] + inputs[i].length;
+            tableOffsets[r + 1] = tableOffsets[r] + PackedRule.wordCount(inputs[i].length);
+        }
+
+        int[] coreInputs = new int[offsets[coreSize]];
+        long[] tables = new long[tableOffsets[coreSize]];
+
+        for (int r = 0; r < coreSize; r++) {
+            int i = originalIds[r];
+
+            for (int j = 0; j < inputs[i].length; j++) {
+                coreInputs[offsets[r] + j] = reducedIds[inputs[i][j]];
+            }
+            System.arraycopy(rules[i], 0, tables, tableOffsets[r], rules[i].length);
+        }
+
+        reduced = new NetworkDefinition(offsets, coreInputs, tableOffsets, tables);
+
+        NetworkMetrics.timed("reduce", start);
+    }
+
+    //Rule with one input fixed to a value, the entries of the other inputs keep their order. The kept
+    //entries come in aligned runs of 2^bit, copied a word at a time or shifted out of a word
+    private static long[] restrict(long[] rule, int k, int bit, int value) {
+        long[] result = new long[PackedRule.wordCount(k - 1)];
+        int run = 1 << bit;
+        int runs = 1 << (k - 1 - bit);
+
+        if (run >= 64) {
+            int words = run >>> 6;
+            for (int r = 0; r < runs; r++) {
+                System.arraycopy(rule, (2 * r + value) * words, result, r * words, words);
+            }
+        } else {
+            long mask = (1L << run) - 1;
+            for (int r = 0; r < runs; r++) {
+                int from = (2 * r + value) * run;
+                int to = r * run;
+                result[to >>> 6] |= (rule[from >>> 6] >>> from & mask) << to;
+            }
+        }
+
+        return result;
+    }
+
+    private static int[] remove(int[] array, int index) {
+        int[] result = new int[array.length - 1];
+        System.arraycopy(array, 0, result, 0, index);
+        System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+        return result;
+    }
+
+    //Full network states of an attractor found on the reduced network. Removed node values at step t
+    //come from their inputs at step t - 1, which on a cycle is the previous state of the cycle. The
+    //full network's transient is not known from the core, so getTransient() of the result is -1
+    public Attractor expandAttractor(Attractor core) {
+        int period = core.period;
+        int words = Attractor.words(original.size);
+        long[][] states = new long[period][words];
+
+        for (int t = 0; t < period; t++) {
+            for (int r = 0; r < originalIds.length; r++) {
+                if ((core.states[t][r >>> 6] >>> r & 1) != 0) {
+                    states[t][originalIds[r] >>> 6] |= 1L << originalIds[r];
+                }
+            }
+
+            for (int i = 0; i < original.size; i++) {
+                if (frozen[i] == 1) states[t][i >>> 6] |= 1L << i;
+            }
+        }
+
+        for (int r = 0; r < removed.length; r++) {
+            int node = removed[r];
+            int[] in = removedInputs[r];
+
+            for (int t = 0; t < period; t++) {
+                long[] previous = states[(t + period - 1) % period];
+                int index = 0;
+
+                for (int src : in) {
+                    index = index << 1 | (int) (previous[src >>> 6] >>> src & 1);
+                }
+
+                if ((removedRules[r][index >>> 6] >>> index & 1) != 0) {
+                    states[t][node >>> 6] |= 1L << node;
+                }
+            }
+        }
+
+        return new Attractor(-1, period, states, original.size);
+    }
+
+    //Core part of a full network state, to start the reduced network from
+    public int[] project(int[] state) {
+        int[] core = new int[originalIds.length];
+        for (int r = 0; r < core.length; r++) {
+            core[r] = state[originalIds[r]];
+        }
+        return core;
+    }
+
+    /* Getter Methods */
+
+    public NetworkDefinition getReduced() {
+        return reduced;
+    }
+
+    public NetworkDefinition getOriginal() {
+        return original;
+    }
+
+    public int getOriginalId(int reducedNode) {
+        return originalIds[reducedNode];
+    }
+
+    //-1 for nodes outside the core
+    public int getReducedId(int node) {
+        return reducedIds[node];
+    }
+
+    public int[] getOriginalIds() {
+        return originalIds.clone();
+    }
+
+    //Value a frozen node settles to, -1 if the node is not frozen
+    public int getFrozenValue(int node) {
+        return frozen[node];
+    }
+
+    public int getCoreSize() {
+        return originalIds.length;
+    }
+
+    public int getFrozenCount() {
+        int count = 0;
+        for (byte value : frozen) {
+            if (value >= 0) count++;
+        }
+        return count;
+    }
+
+    public int getRemovedCount() {
+        return removed.length;
+    }
+
+    //Fictitious inputs stripped from rules, not counting frozen inputs that were substituted
+    public int getStrippedInputs() {
+        return strippedInputs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d nodes: core %d, frozen %d, removed %d, %d fictitious inputs stripped",
+                original.size, getCoreSize(), getFrozenCount(), getRemovedCount(), strippedInputs);
+    }
+}
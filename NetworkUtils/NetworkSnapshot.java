@@ -0,0 +1,315 @@
+package NetworkUtils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**     Binary snapshot of a network: topology, rules and optionally state. Rule tables and states
+ *  made only of zeros and ones are stored one bit per entry, anything else is stored as is, so
+ *  reading a snapshot gives back exactly the int[][]/byte[][]/int[] that were written. Files are
+ *  read through memory mapping without any text parsing.
+ *
+ *  Layout (little endian): magic, version, flags, N, N row lengths, topology entries,
+ *  [N rule lengths (-1 for none), rule tables], [state]
+ */
+
+public class NetworkSnapshot {
+
+    static final int MAGIC = 0x314E5342; //"BSN1"
+    static final int VERSION = 1;
+
+    static final int HAS_RULES = 1, HAS_STATE = 2, PACKED_RULES = 4, PACKED_STATE = 8;
+
+    final int[][] topology;
+    final byte[][] rules;
+    final int[] state;
+
+    public NetworkSnapshot(int[][] topology, byte[][] rules, int[] state) {
+        this.topology = topology;
+        this.rules = rules;
+        this.state = state;
+    }
+
+    //Snapshot of an object model network, rules and state included
+    public NetworkSnapshot(BooleanNetwork network) {
+        Node[] nodes = network.getNetwork();
+
+        topology = new int[nodes.length][];
+        rules = new byte[nodes.length][];
+
+        for (int i = 0; i < nodes.length; i++) {
+            ArrayList<Node> neighbors = nodes[i].getNeighbors();
+            topology[i] = new int[neighbors.size()];
+
+            for (int j = 0; j < neighbors.size(); j++) {
+                topology[i][j] = neighbors.get(j).getID();
+            }
+
+            TruthTable rule = nodes[i].getTruthTable();
+            rules[i] = rule == null ? null : rule instanceof Rule ? ((Rule) rule).getRuleTable() : rule.toBytes();
+        }
+
+        state = network.getState();
+    }
+
+    /* Writing */
+
+    public static void write(Path path, int[][] topology, byte[][] rules, int[] state) throws IOException {
+        new NetworkSnapshot(topology, rules, state).write(path);
+    }
+
+    public static void write(Path path, BooleanNetwork network) throws IOException {
+        new NetworkSnapshot(network).write(path);
+    }
+
+    public void write(Path path) throws IOException {
+        long start = System.nanoTime();
+        int flags = 0;
+
+        if (rules != null) {
+            flags |= HAS_RULES;
+            if (binary(rules)) flags |= PACKED_RULES;
+        }
+
+        if (state != null) {
+            flags |= HAS_STATE;
+            if (binary(state)) flags |= PACKED_STATE;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            ChannelOutput out = new ChannelOutput(channel);
+
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(flags);
+            out.putInt(topology.length);
+
+            for (int[] row : topology) {
+                out.putInt(row.length);
+            }
+            for (int[] row : topology) {
+                for (int v : row) out.putInt(v);
+            }
+
+            if (rules != null) {
+                for (byte[] rule : rules) {
+                    out.putInt(rule == null ? -1 : rule.length);
+                }
+                for (byte[] rule : rules) {
+                    if (rule == null) continue;
+
+                    if ((flags & PACKED_RULES) != 0) {
+                        putPacked(out, rule);
+                    } else {
+                        for (byte b : rule) out.putByte(b);
+                    }
+                }
+            }
+
+            if (state != null) {
+                if ((flags & PACKED_STATE) != 0) {
+                    for (int w = 0; w < (state.length + 63) >>> 6; w++) {
+                        long word = 0;
+                        for (int i = w << 6, end = Math.min(i + 64, state.length); i < end; i++) {
+                            word |= (long) state[i] << i;
+                        }
+                        out.putLong(word);
+                    }
+                } else {
+                    for (int v : state) out.putInt(v);
+                }
+            }
+
+            out.flush();
+        }
+
+        NetworkMetrics.timed("writeSnapshot", start);
+    }
+
+    private static void putPacked(ChannelOutput out, byte[] rule) throws IOException {
+        for (int w = 0; w < (rule.length + 63) >>> 6; w++) {
+            long word = 0;
+            for (int i = w << 6, end = Math.min(i + 64, rule.length); i < end; i++) {
+                word |= (long) rule[i] << i;
+            }
+            out.putLong(word);
+        }
+    }
+
+    private static boolean binary(byte[][] rules) {
+        for (byte[] rule : rules) {
+            if (rule == null) continue;
+            for (byte b : rule) {
+                if (b != 0 && b != 1) return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean binary(int[] state) {
+        for (int s : state) {
+            if (s != 0 && s != 1) return false;
+        }
+        return true;
+    }
+
+    /* Reading */
+
+    public static NetworkSnapshot read(Path path) throws IOException {
+        long start = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedInput in = new MappedInput(channel);
+
+            if (in.getInt() != MAGIC) {
+                throw new IOException(path + " is not a network snapshot");
+            }
+
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+
+            int flags = in.getInt();
+            int size = in.getInt();
+
+            if (size < 0 || 4L * size > in.remaining()) {
+                throw corrupt(path, "node count " + size + " does not fit in the file");
+            }
+
+            int[][] topology = new int[size][];
+            int[] lengths = in.getInts(new int[size]);
+            long entries = 0;
+
+            for (int i = 0; i < size; i++) {
+                if (lengths[i] < 0) {
+                    throw corrupt(path, "node " + i + " has " + lengths[i] + " inputs");
+                }
+                entries += lengths[i];
+            }
+
+            if (4 * entries > in.remaining()) {
+                throw corrupt(path, entries + " topology entries do not fit in the file");
+            }
+
+            for (int i = 0; i < size; i++) {
+                topology[i] = in.getInts(new int[lengths[i]]);
+
+                for (int src : topology[i]) {
+                    if (src < 0 || src >= size) {
+                        throw corrupt(path, "node " + i + " has input " + src + " outside [0, " + size + ")");
+                    }
+                }
+            }
+
+            byte[][] rules = null;
+
+            if ((flags & HAS_RULES) != 0) {
+                rules = new byte[size][];
+                boolean packed = (flags & PACKED_RULES) != 0;
+
+                if (4L * size > in.remaining()) {
+                    throw corrupt(path, "rule lengths do not fit in the file");
+                }
+                in.getInts(lengths);
+
+                long bytes = 0;
+                for (int i = 0; i < size; i++) {
+                    if (lengths[i] < -1) {
+                        throw corrupt(path, "rule of node " + i + " has length " + lengths[i]);
+                    }
+                    if (lengths[i] > 0) {
+                        bytes += packed ? 8L * ((lengths[i] + 63) >>> 6) : lengths[i];
+                    }
+                }
+
+                if (bytes > in.remaining()) {
+                    throw corrupt(path, bytes + " bytes of rules do not fit in the file");
+                }
+
+                for (int i = 0; i < size; i++) {
+                    if (lengths[i] < 0) continue;
+                    rules[i] = new byte[lengths[i]];
+
+                    if (packed) {
+                        long[] words = in.getLongs(new long[(lengths[i] + 63) >>> 6]);
+                        for (int j = 0; j < lengths[i]; j++) {
+                            rules[i][j] = (byte) (words[j >>> 6] >>> j & 1);
+                        }
+                    } else {
+                        in.getBytes(rules[i]);
+                    }
+                }
+            }
+
+            int[] state = null;
+
+            if ((flags & HAS_STATE) != 0) {
+                long bytes = (flags & PACKED_STATE) != 0 ? 8L * ((size + 63) >>> 6) : 4L * size;
+                if (bytes > in.remaining()) {
+                    throw corrupt(path, "state does not fit in the file");
+                }
+
+                state = new int[size];
+
+                if ((flags & PACKED_STATE) != 0) {
+                    long[] words = in.getLongs(new long[(size + 63) >>> 6]);
+                    for (int i = 0; i < size; i++) {
+                        state[i] = (int) (words[i >>> 6] >>> i & 1);
+                    }
+                } else {
+                    in.getInts(state);
+                }
+            }
+
+            NetworkMetrics.timed("readSnapshot", start);
+            return new NetworkSnapshot(topology, rules, state);
+        }
+    }
+
+    private static IOException corrupt(Path path, String message) {
+        return new IOException("Corrupt snapshot " + path + ": " + message);
+    }
+
+    //Builds an object model network from the snapshot
+    public BooleanNetwork toNetwork() {
+        BooleanNetwork network = new BooleanNetwork().setNetwork(topology);
+
+        if (rules != null) network.setRules(rules);
+        if (state != null) network.setState(state);
+
+        return network;
+    }
+
+    //Builds a compiled network directly, without the object model. A compiled network cannot run
+    //without rules, so the snapshot must have them
+    public CompiledNetwork compile() {
+        if (rules == null) {
+            throw new IllegalStateException("Snapshot has no rules");
+        }
+
+        CompiledNetwork network = new CompiledNetwork(topology, rules);
+
+        if (state != null) network.setState(state);
+
+        return network;
+    }
+
+    /* Getter Methods */
+
+    public int[][] getTopology() {
+        return topology;
+    }
+
+    public byte[][] getRules() {
+        return rules;
+    }
+
+    public int[] getState() {
+        return state;
+    }
+}
@@ -13,20 +13,9 @@ public class NetworkStats {
         return (double) counter / network.getSize();
     }
 
+    //Read from the network's running counters, no scan
     public static byte getMajority(BooleanNetwork network){
-        int counter = 0;
-
-        for(Node n : network.getNetwork()){
-            if(n.getState() == 0){
-                counter++;
-            }
-        }
-
-        if(counter > (network.getSize()/2)){ //TODO: adjust this to allow for even majority
-            return 0;
-        }else{
-            return 1;
-        }
+        return network.getObservables().getMajority(); //TODO: adjust this to allow for even majority
     }
 
     public static double syncFitness(BooleanNetwork network, int iterations) {
@@ -82,14 +71,8 @@ public class NetworkStats {
         return total / iterations;
     }
 
-    //Returns percent of network in state
+    //Returns percent of network in state, O(1) from the network's running counters
     public static double densityFitness(BooleanNetwork network, byte state) {
-        int counter = 0;
-        for (Node n : network.getNetwork()) {
-            if(n.getState() == state){
-                counter++;
-            }
-        }
-        return (double) counter / (double) network.getSize();
+        return network.getObservables().getFraction(state);
     }
 }
@@ -3,12 +3,13 @@ package NetworkUtils;
 //Helper class for generating network topologies / states
 //include factory methods
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public class Networks {
-    static ThreadLocalRandom rand = ThreadLocalRandom.current();
 
     public static void setRandomNetwork(BooleanNetwork net, int n, double k, int maxk) {
         net.setNetwork(randomTopology(n,k,maxk))
@@ -24,47 +25,66 @@ public class Networks {
     //Returns topology with a set length in array representation, with unused nodes being set to -1 (Useful in GA's)
     //Follows poission distribution (Passed check!)
     public static int[][] randomTopology(int size, double k, int maxk) {
+        long start = System.nanoTime();
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        int[] degrees = inputDegrees(rand, size, k, maxk);
         int[][] topology = new int[size][maxk];
-        List<Integer> open = new ArrayList<>();
 
-        for (int i = 0; i < size; i++) {
-            open.add(i);
-        }
+        fillTopology(rand, topology, degrees, 0, size);
+
+        NetworkMetrics.timed("randomTopology", start);
+        return topology;
+    }
+
+    //Seeded versions take a SplittableRandom (e.g. new SplittableRandom(seed)) and give identical
+    //output for the same seed whatever the number of threads
+    public static int[][] randomTopology(int size, double k, int maxk, SplittableRandom random) {
+        long start = System.nanoTime();
+        int[] degrees = inputDegrees(random, size, k, maxk);
+        int[][] topology = new int[size][maxk];
+
+        generate(random, size, (rand, from, to) -> fillTopology(rand, topology, degrees, from, to));
+
+        NetworkMetrics.timed("randomTopology", start);
+        return topology;
+    }
+
+    //Hands out connections one at a time to random nodes still below maxk inputs
+    private static int[] inputDegrees(RandomGenerator rand, int size, double k, int maxk) {
+        int[] degrees = new int[size];
+        int[] open = new int[size];
+        int count = size;
 
         for (int i = 0; i < size; i++) {
-            for (int j = 0; j < maxk; j++) {
-                topology[i][j] = -1;
-            }
+            open[i] = i;
         }
 
         int connections = 0;
 
         while ((double) connections / (double) size < k) {
-            addConnection(topology,maxk,open);
+            int index = rand.nextInt(count);
+
+            if (++degrees[open[index]] == maxk) {
+                open[index] = open[--count];
+            }
             connections++;
         }
 
-        return topology;
+        return degrees;
     }
 
-    private static void addConnection(int[][] topology, int maxk, List<Integer> open) {
-        int index = rand.nextInt(open.size());
-        int node = open.get(index);
-
-        for (int i = 0; i < maxk - 1; i++) {
-            if (topology[node][i] == -1) {
-                topology[node][i] = rand.nextInt(topology.length);
-                return;
+    private static void fillTopology(RandomGenerator rand, int[][] topology, int[] degrees, int from, int to) {
+        for (int i = from; i < to; i++) {
+            for (int j = 0; j < topology[i].length; j++) {
+                topology[i][j] = j < degrees[i] ? rand.nextInt(topology.length) : -1;
             }
         }
-
-        topology[node][maxk-1] = rand.nextInt(topology.length);
-        open.remove(index);
     }
 
-
     //Returns a topology with an exact K for each node
     public static int[][] randomTopology(int size, int k) {
+        long start = System.nanoTime();
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
         int[][] topology = new int[size][k];
 
         for (int i = 0; i < size; i++) {
@@ -73,6 +93,23 @@ public class Networks {
             }
         }
 
+        NetworkMetrics.timed("randomTopology", start);
+        return topology;
+    }
+
+    public static int[][] randomTopology(int size, int k, SplittableRandom random) {
+        long start = System.nanoTime();
+        int[][] topology = new int[size][k];
+
+        generate(random, size, (rand, from, to) -> {
+            for (int i = from; i < to; i++) {
+                for (int j = 0; j < k; j++) {
+                    topology[i][j] = rand.nextInt(size);
+                }
+            }
+        });
+
+        NetworkMetrics.timed("randomTopology", start);
         return topology;
     }
 
@@ -95,28 +132,106 @@ public class Networks {
 
     //Random ruleset as array of rule objects
     public static Rule[] randomRuleset(int size, int maxK) {
+        long start = System.nanoTime();
         Rule[] randomRules = new Rule[size];
 
         for (int i = 0; i < randomRules.length; i++) {
             randomRules[i] = new Rule(maxK);
         }
 
+        NetworkMetrics.timed("randomRuleset", start);
         return randomRules;
     }
 
+    public static Rule[] randomRuleset(int size, int maxK, SplittableRandom random) {
+        long start = System.nanoTime();
+        Rule[] randomRules = new Rule[size];
+
+        generate(random, size, (rand, from, to) -> {
+            for (int i = from; i < to; i++) {
+                randomRules[i] = new Rule(randomRule(maxK, rand), maxK);
+            }
+        });
+
+        NetworkMetrics.timed("randomRuleset", start);
+        return randomRules;
+    }
+
+    //Random packed ruleset with each table sized to the node's in-degree in the topology
+    public static PackedRule[] randomRulesetPacked(int[][] topology) {
+        return randomRulesetPacked(topology, false);
+    }
+
+    //Optionally shares one instance between nodes that drew the same table
+    public static PackedRule[] randomRulesetPacked(int[][] topology, boolean share) {
+        long start = System.nanoTime();
+        PackedRule[] rules = new PackedRule[topology.length];
+
+        for (int i = 0; i < topology.length; i++) {
+            int k = 0;
+            for (int j = 0; j < topology[i].length; j++) {
+                if (topology[i][j] >= 0) k++;
+            }
+            rules[i] = PackedRule.random(k);
+        }
+
+        if (share) {
+            rules = PackedRule.share(rules);
+        }
+
+        NetworkMetrics.timed("randomRulesetPacked", start);
+        return rules;
+    }
+
+    public static PackedRule[] randomRulesetPacked(int[][] topology, SplittableRandom random) {
+        long start = System.nanoTime();
+        PackedRule[] rules = new PackedRule[topology.length];
+
+        generate(random, topology.length, (rand, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int k = 0;
+                for (int j = 0; j < topology[i].length; j++) {
+                    if (topology[i][j] >= 0) k++;
+                }
+                rules[i] = PackedRule.random(k, rand);
+            }
+        });
+
+        NetworkMetrics.timed("randomRulesetPacked", start);
+        return rules;
+    }
+
     //Returns ruleset as byte array (Useful in GA's)
     public static byte[][] randomRulesetByte(int size, int maxK) {
+        long start = System.nanoTime();
         byte[][] rules = new byte[size][];
 
         for (int i = 0; i < size; i++) {
             rules[i] = randomRule(maxK);
         }
 
+        NetworkMetrics.timed("randomRulesetByte", start);
+        return rules;
+    }
+
+    public static byte[][] randomRulesetByte(int size, int maxK, SplittableRandom random) {
+        long start = System.nanoTime();
+        byte[][] rules = new byte[size][];
+
+        generate(random, size, (rand, from, to) -> {
+            for (int i = from; i < to; i++) {
+                rules[i] = randomRule(maxK, rand);
+            }
+        });
+
+        NetworkMetrics.timed("randomRulesetByte", start);
         return rules;
     }
 
     //Returns random state as byte array
     public static int[] randomState(int size, double p) {
+        long start = System.nanoTime();
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
         int[] state = new int[size];
 
         for (int i = 0; i < state.length; i++) {
@@ -125,18 +240,57 @@ public class Networks {
             }
         }
 
+        NetworkMetrics.timed("randomState", start);
+        return state;
+    }
+
+    public static int[] randomState(int size, double p, SplittableRandom random) {
+        long start = System.nanoTime();
+        int[] state = new int[size];
+
+        generate(random, size, (rand, from, to) -> {
+            for (int i = from; i < to; i++) {
+                if (rand.nextDouble() < p) {
+                    state[i] = 1;
+                }
+            }
+        });
+
+        NetworkMetrics.timed("randomState", start);
         return state;
     }
 
     public static int[] randomState(int size) {
+        long start = System.nanoTime();
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
         int[] state = new int[size];
         for (int i = 0; i < size; i++) {
             if (rand.nextBoolean()) state[i] = 1;
         }
+
+        NetworkMetrics.timed("randomState", start);
+        return state;
+    }
+
+    public static int[] randomState(int size, SplittableRandom random) {
+        long start = System.nanoTime();
+        int[] state = new int[size];
+
+        generate(random, size, (rand, from, to) -> {
+            for (int i = from; i < to; i++) {
+                if (rand.nextBoolean()) state[i] = 1;
+            }
+        });
+
+        NetworkMetrics.timed("randomState", start);
         return state;
     }
 
     public static byte[] randomRule(int connections) {
+        return randomRule(connections, ThreadLocalRandom.current());
+    }
+
+    public static byte[] randomRule(int connections, RandomGenerator rand) {
         byte[] ruletable = new byte[(int) Math.pow(2, connections)];
 
         for (int i = 0; i < ruletable.length; i++) {
@@ -145,4 +299,28 @@ public class Networks {
 
         return ruletable;
     }
+
+    /* Seeded generation */
+
+    //Nodes per random stream. Fixed, since the output for a seed depends on it
+    static final int SEED_CHUNK = 4096;
+
+    interface Chunk {
+        void run(SplittableRandom rand, int from, int to);
+    }
+
+    //Splits one stream per chunk in chunk order, then fills chunks in parallel
+    static void generate(SplittableRandom root, int size, Chunk body) {
+        SplittableRandom[] streams = new SplittableRandom[(size + SEED_CHUNK - 1) / SEED_CHUNK];
+
+        for (int c = 0; c < streams.length; c++) {
+            streams[c] = root.split();
+        }
+
+        ParallelRange.run(ForkJoinPool.commonPool(), size, SEED_CHUNK, (from, to) -> {
+            for (int c = from; c < to; c += SEED_CHUNK) {
+                body.run(streams[c / SEED_CHUNK], c, Math.min(c + SEED_CHUNK, to));
+            }
+        });
+    }
 }
@@ -5,7 +5,7 @@ import java.util.BitSet;
 
 public class Node {
     int state,buffer;
-    Rule rule;
+    TruthTable rule;
     ArrayList<Node> neighbors = new ArrayList<>();
 
     public BitSet neighborbit = new BitSet();//TODO: implement proper bitset size
@@ -14,6 +14,9 @@ public class Node {
 
     public boolean update = false, updatebuffer = false;
 
+    //Counters of the network this node belongs to, told about every state change
+    Observables observables;
+
     public Node(int ID) {
         this.ID = ID;
     }
@@ -49,7 +52,10 @@ public class Node {
 
     /* getters and setters */
 
+    //States are 0 or 1, anything else would throw off the network's counters
     public void setState(int state){
+        checkState(state);
+        if (observables != null) observables.change(this.state, state);
         this.state = state;
     }
 
@@ -58,10 +64,18 @@ public class Node {
     }
 
     public void setBuffer(int buffer){
+        checkState(buffer);
         this.buffer = buffer;
     }
 
+    private void checkState(int state){
+        if (state != 0 && state != 1) {
+            throw new IllegalArgumentException("State of node " + ID + " must be 0 or 1, not " + state);
+        }
+    }
+
     public void swapBuffer(){
+        if (observables != null) observables.change(state, buffer);
         state = buffer;
     }
 
@@ -82,7 +96,7 @@ public class Node {
         this.neighbors = neighbors;
     }
 
-    public void setRule(Rule rule){
+    public void setRule(TruthTable rule){
         this.rule = rule;
     }
 
@@ -94,7 +108,16 @@ public class Node {
         return ID;
     }
 
+    //Mutable rule of this node. A packed rule may be shared, so the node first switches to its own copy
     public Rule getRule() {
+        if (rule instanceof PackedRule) {
+            rule = ((PackedRule) rule).toRule();
+        }
+        return (Rule) rule;
+    }
+
+    //The rule as set, without copying packed rules
+    public TruthTable getTruthTable() {
         return rule;
     }
 
@@ -0,0 +1,154 @@
+package NetworkUtils;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**     Set of nodes backed by a dense bitset over node IDs and a queue of the IDs in insertion
+ *  order. Adding, membership and clearing cost O(1) per member and do not allocate, which keeps
+ *  cascade updates proportional to the active frontier.
+ */
+
+public class NodeSet extends AbstractSet<Node> {
+
+    private Node[] nodes;
+    private long[] bits;
+    private int[] queue;
+    private int count;
+
+    public NodeSet() {
+        this(new Node[0]);
+    }
+
+    public NodeSet(Node[] nodes) {
+        setNodes(nodes);
+    }
+
+    //Rebinds the set to a network, clearing it
+    void setNodes(Node[] nodes) {
+        this.nodes = nodes;
+        this.bits = new long[(nodes.length + 63) >>> 6];
+        this.queue = new int[nodes.length];
+        this.count = 0;
+    }
+
+    public boolean add(int id) {
+        check(id);
+        long mask = 1L << id;
+
+        if ((bits[id >>> 6] & mask) != 0) {
+            return false;
+        }
+
+        bits[id >>> 6] |= mask;
+        queue[count++] = id;
+        return true;
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < nodes.length && (bits[id >>> 6] & 1L << id) != 0;
+    }
+
+    public boolean remove(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+
+        bits[id >>> 6] &= ~(1L << id);
+
+        for (int i = 0; i < count; i++) {
+            if (queue[i] == id) {
+                System.arraycopy(queue, i + 1, queue, i, count - i - 1);
+                break;
+            }
+        }
+        count--;
+        return true;
+    }
+
+    private void check(int id) {
+        if (nodes.length == 0) {
+            throw new IllegalStateException("Node set is not bound to a network yet, set the network first");
+        }
+        if (id < 0 || id >= nodes.length) {
+            throw new IllegalArgumentException("Node " + id + " is outside the network of " + nodes.length + " nodes");
+        }
+    }
+
+    //True if node is the node of this network with its ID, not just any node with that ID
+    private boolean member(Node node) {
+        int id = node.getID();
+        return id >= 0 && id < nodes.length && nodes[id] == node;
+    }
+
+    //Replaces the contents with those of another set
+    public void copy(NodeSet other) {
+        clear();
+        for (int i = 0; i < other.count; i++) {
+            add(other.queue[i]);
+        }
+    }
+
+    //ID of the i-th member in insertion order
+    public int get(int i) {
+        return queue[i];
+    }
+
+    //Clears only the words holding members
+    @Override
+    public void clear() {
+        for (int i = 0; i < count; i++) {
+            bits[queue[i] >>> 6] = 0;
+        }
+        count = 0;
+    }
+
+    @Override
+    public boolean add(Node node) {
+        check(node.getID());
+        if (!member(node)) {
+            throw new IllegalArgumentException("Node " + node.getID() + " is not part of this network");
+        }
+        return add(node.getID());
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Node && member((Node) o) && contains(((Node) o).getID());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Node && member((Node) o) && remove(((Node) o).getID());
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        return new Iterator<Node>() {
+            int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < count;
+            }
+
+            @Override
+            public Node next() {
+                if (index >= count) {
+                    throw new NoSuchElementException();
+                }
+                return nodes[queue[index++]];
+            }
+
+            @Override
+            public void remove() {
+                NodeSet.this.remove(queue[--index]);
+            }
+        };
+    }
+}
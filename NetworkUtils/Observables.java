@@ -0,0 +1,82 @@
+package NetworkUtils;
+
+/**     Running counters for the state of a BooleanNetwork with states 0 and 1. Nodes report every
+ *  state change, so the number of ones, the majority state and the number of flips during the
+ *  last update step are available without scanning the network. Nodes reject any other state, so
+ *  every node not counted as a one is a zero.
+ */
+
+public class Observables {
+
+    final int size;
+
+    //Nodes in state 1
+    int ones;
+
+    //State changes since the last update step began
+    int flips;
+
+    Observables(int size) {
+        this.size = size;
+    }
+
+    void change(int old, int now) {
+        if (old != now) {
+            flips++;
+            if (now == 1) ones++;
+            else if (old == 1) ones--;
+        }
+    }
+
+    //Changes counted by a parallel task
+    synchronized void add(int ones, int flips) {
+        this.ones += ones;
+        this.flips += flips;
+    }
+
+    //Called by the update schemes before they change any state
+    void step() {
+        flips = 0;
+    }
+
+    void recount(Node[] network) {
+        ones = 0;
+        for (Node n : network) {
+            if (n.getState() == 1) ones++;
+        }
+        flips = 0;
+    }
+
+    /* Getter Methods */
+
+    public int getOnes() {
+        return ones;
+    }
+
+    public int getZeros() {
+        return size - ones;
+    }
+
+    //Fraction of nodes in state 1
+    public double getDensity() {
+        return (double) ones / size;
+    }
+
+    //Fraction of nodes in a state, 0 or 1
+    public double getFraction(int state) {
+        if (state != 0 && state != 1) {
+            throw new IllegalArgumentException("States are 0 or 1, not " + state);
+        }
+        return (double) (state == 1 ? ones : size - ones) / size;
+    }
+
+    //Nodes that changed state during the last update step
+    public int getFlips() {
+        return flips;
+    }
+
+    //Majority state, ties go to 1 as in NetworkStats.getMajority
+    public byte getMajority() {
+        return size - ones > size / 2 ? (byte) 0 : (byte) 1;
+    }
+}
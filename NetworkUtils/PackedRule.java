@@ -0,0 +1,198 @@
+package NetworkUtils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**     Rule table stored one bit per entry in long words, sized to the node's actual in-degree
+ *  (2^k entries). Packed rules are immutable, so identical tables can be shared between nodes.
+ *  toRule() gives a mutable copy, which is what Node.getRule() switches a packed node to.
+ */
+
+public class PackedRule implements TruthTable {
+
+    //Entry i is bit (i & 63) of words[i >>> 6]
+    final long[] words;
+    final int connections;
+
+    //Average sensitivity, computed on first use (NaN until then)
+    private volatile double sensitivity = Double.NaN;
+
+    PackedRule(long[] words, int connections) {
+        if (connections < 0 || connections > 30) {
+            throw new IllegalArgumentException("Packed rules support 0 to 30 connections");
+        }
+
+        this.words = words;
+        this.connections = connections;
+    }
+
+    //Random table with 2^connections entries
+    public static PackedRule random(int connections) {
+        return random(connections, ThreadLocalRandom.current());
+    }
+
+    public static PackedRule random(int connections, RandomGenerator rand) {
+        long[] words = new long[wordCount(connections)];
+
+        for (int i = 0; i < words.length; i++) {
+            words[i] = rand.nextLong();
+        }
+
+        return new PackedRule(mask(words, connections), connections);
+    }
+
+    //Packs the first 2^connections entries of a byte table
+    public static PackedRule fromBytes(byte[] table, int connections) {
+        int entries = 1 << connections;
+
+        if (table.length < entries) {
+            throw new IllegalArgumentException("Rule table has fewer than 2^" + connections + " entries");
+        }
+
+        long[] words = new long[wordCount(connections)];
+
+        for (int i = 0; i < entries; i++) {
+            if (table[i] > 0) words[i >>> 6] |= 1L << i;
+        }
+
+        return new PackedRule(words, connections);
+    }
+
+    //Packs a whole byte table, whose length must be a power of two
+    public static PackedRule fromBytes(byte[] table) {
+        int connections = Integer.numberOfTrailingZeros(table.length);
+
+        if (table.length != 1 << connections) {
+            throw new IllegalArgumentException("Rule table length " + table.length + " is not a power of two");
+        }
+
+        return fromBytes(table, connections);
+    }
+
+    //Packs any rule, keeping the entries used by a node with the given in-degree
+    public static PackedRule fromRule(TruthTable rule, int connections) {
+        if (rule instanceof PackedRule) {
+            PackedRule packed = (PackedRule) rule;
+
+            if (packed.connections == connections) {
+                return packed;
+            }
+
+            if (packed.connections > connections) {
+                long[] words = Arrays.copyOf(packed.words, wordCount(connections));
+                return new PackedRule(mask(words, connections), connections);
+            }
+        }
+
+        return fromBytes(rule instanceof Rule ? ((Rule) rule).getRuleTable() : rule.toBytes(), connections);
+    }
+
+    //Replaces equal tables with a single shared instance
+    public static PackedRule[] share(PackedRule[] rules) {
+        Map<PackedRule, PackedRule> tables = new HashMap<>();
+        PackedRule[] shared = new PackedRule[rules.length];
+
+        for (int i = 0; i < rules.length; i++) {
+            shared[i] = tables.computeIfAbsent(rules[i], r -> r);
+        }
+
+        return shared;
+    }
+
+    static int wordCount(int connections) {
+        return connections <= 6 ? 1 : 1 << (connections - 6);
+    }
+
+    //Clears bits past entry 2^connections in the last word
+    private static long[] mask(long[] words, int connections) {
+        if (connections < 6) {
+            words[0] &= (1L << (1 << connections)) - 1;
+        }
+        return words;
+    }
+
+    public int get(int i) {
+        return (int) (words[i >>> 6] >>> i & 1);
+    }
+
+    public byte getRule(int i) {
+        return (byte) (words[i >>> 6] >>> i & 1);
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public int getEntries() {
+        return 1 << connections;
+    }
+
+    //Number of entries set to one
+    public int getOnes() {
+        int ones = 0;
+        for (long w : words) {
+            ones += Long.bitCount(w);
+        }
+        return ones;
+    }
+
+    //Fraction of entries set to one
+    public double getBias() {
+        return (double) getOnes() / getEntries();
+    }
+
+    //Sum of the input activities, see Sensitivity. Cached, so shared rules are analysed once
+    public double getSensitivity() {
+        double s = sensitivity;
+        if (Double.isNaN(s)) {
+            sensitivity = s = Sensitivity.sensitivity(words, 0, connections);
+        }
+        return s;
+    }
+
+    public double[] getActivities() {
+        return Sensitivity.activities(words, 0, connections);
+    }
+
+    public long[] getWords() {
+        return words.clone();
+    }
+
+    //Unpacks into the byte form used by Rule
+    @Override
+    public byte[] toBytes() {
+        byte[] table = new byte[1 << connections];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = getRule(i);
+        }
+        return table;
+    }
+
+    //Mutable byte table copy of this rule
+    public Rule toRule() {
+        return new Rule(toBytes(), connections);
+    }
+
+    public void printRules() {
+        System.out.print("{");
+        for (int i = 0; i < 1 << connections; i++) {
+            System.out.print(get(i));
+        }
+        System.out.println("}");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PackedRule
+                && ((PackedRule) o).connections == connections
+                && Arrays.equals(((PackedRule) o).words, words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * connections + Arrays.hashCode(words);
+    }
+}
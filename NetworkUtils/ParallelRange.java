@@ -0,0 +1,47 @@
+package NetworkUtils;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//Splits an index range into chunks and runs them on a ForkJoinPool
+class ParallelRange extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    interface Body {
+        void run(int from, int to);
+    }
+
+    private final int from, to, chunkSize;
+    private final Body body;
+
+    ParallelRange(int from, int to, int chunkSize, Body body) {
+        this.from = from;
+        this.to = to;
+        this.chunkSize = chunkSize;
+        this.body = body;
+    }
+
+    static void run(ForkJoinPool pool, int size, int chunkSize, Body body) {
+        if (size <= chunkSize) {
+            body.run(0, size);
+        } else {
+            pool.invoke(new ParallelRange(0, size, chunkSize, body));
+        }
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= chunkSize) {
+            body.run(from, to);
+            return;
+        }
+
+        //Split on a chunk boundary so chunks are the same regardless of scheduling
+        int chunks = (to - from + chunkSize - 1) / chunkSize;
+        int mid = from + (chunks / 2) * chunkSize;
+
+        invokeAll(new ParallelRange(from, mid, chunkSize, body),
+                new ParallelRange(mid, to, chunkSize, body));
+    }
+}
@@ -1,12 +1,10 @@
 package NetworkUtils;
 
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
-public class Rule {
+public class Rule implements TruthTable {
     byte[] ruleTable;
 
-    Random rand = new Random();
-    static Random srand = new Random();
     int connections;
 
     public Rule(int connections){
@@ -17,9 +15,17 @@ public class Rule {
 
     public Rule(){}
 
+    public Rule(byte[] ruleTable, int connections){
+        this.ruleTable = ruleTable;
+        this.connections = connections;
+    }
+
     public byte getRule(int i){
         return ruleTable[i];
     }
+    public int getEntries(){
+        return ruleTable.length;
+    }
     public void setRuleTable(byte[] ruleTable){
         this.ruleTable = ruleTable;
     }
@@ -31,6 +37,7 @@ public class Rule {
     }
 
     public void generateRules(){
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
         for(int i = 0; i < ruleTable.length; i++){
             ruleTable[i] = (byte) rand.nextInt(2);
         }
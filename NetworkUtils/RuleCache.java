@@ -0,0 +1,89 @@
+package NetworkUtils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.random.RandomGenerator;
+
+/**     Process wide canonical packed rules for nodes with up to four inputs. Such a table fits in
+ *  16 bits, so it is looked up by that value within its in-degree and every node, network and
+ *  thread asking for the same table gets the same immutable instance. All 2 + 4 + 16 + 256 + 65536
+ *  possible tables have a fixed slot, so the cache can never grow past that. Tables with more
+ *  inputs are rarely equal and are packed but not interned.
+ */
+
+public final class RuleCache {
+
+    public static final int MAX_CONNECTIONS = 4;
+
+    //Tables of k inputs start at slot OFFSETS[k], table value v is at OFFSETS[k] + v
+    private static final int[] OFFSETS = new int[MAX_CONNECTIONS + 2];
+
+    static {
+        for (int k = 0; k <= MAX_CONNECTIONS; k++) {
+            OFFSETS[k + 1] = OFFSETS[k] + (1 << (1 << k));
+        }
+    }
+
+    private static final AtomicReferenceArray<PackedRule> SLOTS =
+            new AtomicReferenceArray<>(OFFSETS[MAX_CONNECTIONS + 1]);
+
+    private RuleCache() {}
+
+    //Canonical rule whose entry i is bit i of value, bits past entry 2^connections are ignored
+    public static PackedRule get(long value, int connections) {
+        if (connections < 0 || connections > MAX_CONNECTIONS) {
+            throw new IllegalArgumentException("Only rules with 0 to " + MAX_CONNECTIONS + " connections are interned");
+        }
+
+        value &= (1L << (1 << connections)) - 1;
+        int slot = OFFSETS[connections] + (int) value;
+
+        PackedRule rule = SLOTS.get(slot);
+        if (rule == null) {
+            SLOTS.compareAndSet(slot, null, new PackedRule(new long[]{value}, connections));
+            rule = SLOTS.get(slot);
+        }
+
+        return rule;
+    }
+
+    //Packs a rule for a node with the given in-degree and returns the canonical instance if it has one
+    public static PackedRule intern(TruthTable rule, int connections) {
+        PackedRule packed = PackedRule.fromRule(rule, connections);
+
+        if (connections > MAX_CONNECTIONS) {
+            return packed;
+        }
+
+        return get(packed.words[0], connections);
+    }
+
+    //Random table with 2^connections entries, canonical when small enough
+    public static PackedRule random(int connections) {
+        return random(connections, ThreadLocalRandom.current());
+    }
+
+    public static PackedRule random(int connections, RandomGenerator rand) {
+        if (connections > MAX_CONNECTIONS) {
+            return PackedRule.random(connections, rand);
+        }
+
+        return get(rand.nextLong(), connections);
+    }
+
+    //Number of distinct interned tables
+    public static int size() {
+        int count = 0;
+        for (int i = 0; i < SLOTS.length(); i++) {
+            if (SLOTS.get(i) != null) count++;
+        }
+        return count;
+    }
+
+    //Drops every interned table. Rules already handed out stay valid but are no longer canonical
+    public static void clear() {
+        for (int i = 0; i < SLOTS.length(); i++) {
+            SLOTS.set(i, null);
+        }
+    }
+}
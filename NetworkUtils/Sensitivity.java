@@ -0,0 +1,278 @@
+package NetworkUtils;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**     Criticality of a network read off its rules, without simulation. The activity of an input is
+ *  the fraction of the 2^k table entries whose output changes when that input is flipped (the
+ *  Boolean derivative), the average sensitivity of a rule is the sum of its activities, and the bias
+ *  is the fraction of entries set to one.
+ *
+ *  In the annealed approximation a one node perturbation spreads to getMeanSensitivity() nodes per
+ *  step, so the network is ordered below 1, critical at 1 and chaotic above. For random rules with
+ *  bias p the expected sensitivity is 2p(1-p)K.
+ */
+
+public class Sensitivity {
+
+    //Entries whose index has bit b clear, for inputs inside one word
+    private static final long[] LOW = {
+            0x5555555555555555L, 0x3333333333333333L, 0x0F0F0F0F0F0F0F0FL,
+            0x00FF00FF00FF00FFL, 0x0000FFFF0000FFFFL, 0x00000000FFFFFFFFL
+    };
+
+    private static final int CHUNK = 4096;
+
+    final int size;
+    final int[] degrees;
+    final double[] sensitivity;
+    final double[] bias;
+
+    private double meanSensitivity;
+    private double meanBias;
+    private double meanDegree;
+    private double expectedSensitivity;
+
+    public Sensitivity(NetworkDefinition network) {
+        this(network.size);
+
+        ParallelRange.run(ForkJoinPool.commonPool(), size, CHUNK, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                int k = network.degree(i);
+                degrees[i] = k;
+                sensitivity[i] = sensitivity(network.tables, network.tableOffsets[i], k);
+                bias[i] = bias(network.tables, network.tableOffsets[i], k);
+            }
+        });
+
+        summarize();
+    }
+
+    public Sensitivity(BooleanNetwork network) {
+        this(network.getNetwork());
+    }
+
+    //Reads rules and in-degrees from the nodes, packed rules reuse their cached results
+    public Sensitivity(Node[] network) {
+        this(network.length);
+
+        ParallelRange.run(ForkJoinPool.commonPool(), size, CHUNK, (from, to) -> {
+            long[] scratch = new long[1];
+
+            for (int i = from; i < to; i++) {
+                int k = network[i].getNeighbors().size();
+                TruthTable rule = network[i].getTruthTable();
+                degrees[i] = k;
+
+                if (k == 0) continue;
+
+                if (rule instanceof PackedRule && ((PackedRule) rule).connections == k) {
+                    sensitivity[i] = ((PackedRule) rule).getSensitivity();
+                    bias[i] = ((PackedRule) rule).getBias();
+                    continue;
+                }
+
+                if (scratch.length < PackedRule.wordCount(k)) {
+                    scratch = new long[PackedRule.wordCount(k)];
+                }
+
+                pack(rule, k, scratch);
+                sensitivity[i] = sensitivity(scratch, 0, k);
+                bias[i] = bias(scratch, 0, k);
+            }
+        });
+
+        summarize();
+    }
+
+    private Sensitivity(int size) {
+        this.size = size;
+        this.degrees = new int[size];
+        this.sensitivity = new double[size];
+        this.bias = new double[size];
+    }
+
+    //Sequential sums so the means do not depend on the thread count
+    private void summarize() {
+        if (size == 0) return;
+
+        double s = 0, p = 0, k = 0;
+        int ruled = 0;
+
+        for (int i = 0; i < size; i++) {
+            s += sensitivity[i];
+            k += degrees[i];
+
+            if (degrees[i] > 0) {
+                p += bias[i];
+                ruled++;
+            }
+        }
+
+        meanSensitivity = s / size;
+        meanBias = ruled == 0 ? 0 : p / ruled;
+        meanDegree = k / size;
+        expectedSensitivity = expectedSensitivity(meanBias, meanDegree);
+    }
+
+    /* Rule Analysis */
+
+    //Average sensitivity of a rule as used by a node with k inputs
+    public static double getSensitivity(TruthTable rule, int k) {
+        if (rule instanceof PackedRule && ((PackedRule) rule).connections == k) {
+            return ((PackedRule) rule).getSensitivity();
+        }
+        long[] words = pack(rule, k, new long[PackedRule.wordCount(k)]);
+        return sensitivity(words, 0, k);
+    }
+
+    //Fraction of the first 2^k entries set to one
+    public static double getBias(TruthTable rule, int k) {
+        if (rule instanceof PackedRule && ((PackedRule) rule).connections == k) {
+            return ((PackedRule) rule).getBias();
+        }
+        long[] words = pack(rule, k, new long[PackedRule.wordCount(k)]);
+        return bias(words, 0, k);
+    }
+
+    //Activity of each input, in input order (the first input is the most significant bit)
+    public static double[] getActivities(TruthTable rule, int k) {
+        long[] words = pack(rule, k, new long[PackedRule.wordCount(k)]);
+        return activities(words, 0, k);
+    }
+
+    //Expected average sensitivity of a random rule with k inputs and bias p
+    public static double expectedSensitivity(double p, double k) {
+        return 2 * p * (1 - p) * k;
+    }
+
+    private static long[] pack(TruthTable rule, int k, long[] words) {
+        if (k == 0) return words;
+
+        if (rule instanceof PackedRule && ((PackedRule) rule).connections >= k) {
+            System.arraycopy(((PackedRule) rule).words, 0, words, 0, PackedRule.wordCount(k));
+            return words;
+        }
+
+        byte[] table = rule instanceof Rule ? ((Rule) rule).getRuleTable() : rule.toBytes();
+        int entries = 1 << k;
+
+        if (table.length < entries) {
+            throw new IllegalArgumentException("Rule table has fewer than 2^" + k + " entries");
+        }
+
+        Arrays.fill(words, 0, PackedRule.wordCount(k), 0);
+        for (int j = 0; j < entries; j++) {
+            if (table[j] > 0) words[j >>> 6] |= 1L << j;
+        }
+
+        return words;
+    }
+
+    /* Packed Table Kernels */
+
+    //Table entries x with f(x) != f(x with bit b flipped), counting both entries of each pair
+    static long derivative(long[] words, int offset, int k, int b) {
+        long count = 0;
+
+        if (b < 6) {
+            int shift = 1 << b;
+            long last = k < 6 ? (1L << (1 << k)) - 1 : -1L;
+
+            for (int w = 0; w < PackedRule.wordCount(k); w++) {
+                long x = words[offset + w] & last;
+                count += Long.bitCount((x ^ x >>> shift) & LOW[b]);
+            }
+        } else {
+            int stride = 1 << (b - 6);
+
+            for (int w = 0; w < PackedRule.wordCount(k); w++) {
+                if ((w & stride) == 0) {
+                    count += Long.bitCount(words[offset + w] ^ words[offset + w + stride]);
+                }
+            }
+        }
+
+        return 2 * count;
+    }
+
+    static double sensitivity(long[] words, int offset, int k) {
+        if (k == 0) return 0;
+
+        long count = 0;
+        for (int b = 0; b < k; b++) {
+            count += derivative(words, offset, k, b);
+        }
+
+        return (double) count / (1L << k);
+    }
+
+    static double[] activities(long[] words, int offset, int k) {
+        double[] activity = new double[k];
+
+        for (int i = 0; i < k; i++) {
+            activity[i] = (double) derivative(words, offset, k, k - 1 - i) / (1L << k);
+        }
+
+        return activity;
+    }
+
+    static double bias(long[] words, int offset, int k) {
+        if (k == 0) return 0;
+
+        long ones;
+        if (k < 6) {
+            ones = Long.bitCount(words[offset] & (1L << (1 << k)) - 1);
+        } else {
+            ones = 0;
+            for (int w = 0; w < PackedRule.wordCount(k); w++) {
+                ones += Long.bitCount(words[offset + w]);
+            }
+        }
+
+        return (double) ones / (1L << k);
+    }
+
+    /* Getter Methods */
+
+    public double getSensitivity(int node) {
+        return sensitivity[node];
+    }
+
+    public double getBias(int node) {
+        return bias[node];
+    }
+
+    public int getDegree(int node) {
+        return degrees[node];
+    }
+
+    //Mean average sensitivity over all nodes, the annealed Derrida slope (1 is critical)
+    public double getMeanSensitivity() {
+        return meanSensitivity;
+    }
+
+    //Over the nodes with at least one input, nodes without inputs are constant zero
+    public double getMeanBias() {
+        return meanBias;
+    }
+
+    public double getMeanDegree() {
+        return meanDegree;
+    }
+
+    //2p(1-p)K from the mean bias and mean in-degree, the value for an ensemble of random rules with that bias
+    public double getExpectedSensitivity() {
+        return expectedSensitivity;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("mean sensitivity %.4f (expected %.4f), mean bias %.4f, mean K %.4f",
+                meanSensitivity, expectedSensitivity, meanBias, meanDegree);
+    }
+}
@@ -0,0 +1,414 @@
+package NetworkUtils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**     Exhaustive exploration of the synchronous state space of a small compiled network. States
+ *  are ints with node i in bit i. Every state is labelled with its attractor and its distance to the
+ *  attractor in off-heap tables (6 bytes per state, so N = 28 needs 1.5GB of direct memory, see
+ *  -XX:MaxDirectMemorySize).
+ *
+ *  Workers claim trajectories by marking states with compare and set. A trajectory that runs into
+ *  a state claimed by another worker is set aside and finished in a short sequential pass.
+ */
+
+public class StateSpace {
+
+    public static final int MAX_SIZE = 30;
+
+    //Label values. Transient states hold id + 1, cycle states CYCLE - id, in-progress states WORKER + w
+    private static final int UNVISITED = 0;
+    private static final int BLOCKED = -1;
+    private static final int SEQUENTIAL = -2;
+    private static final int CYCLE = -3;
+    private static final int WORKER = Integer.MIN_VALUE;
+    private static final int MAX_WORKERS = 1 << 16;
+
+    private static final int SEGMENT_BITS = 26;
+    private static final int PARTITION = 1 << 14;
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    final NetworkDefinition network;
+    final int size;
+    final long states;
+
+    private ByteBuffer[] labels;
+
+    //Distance of each transient state to its cycle, 2 bytes per state
+    private ByteBuffer[] depthTable;
+    private static final int SATURATED = Character.MAX_VALUE;
+
+    //Attractors in the order they were found
+    private int count;
+    private int[] representatives = new int[16];
+    private int[] periods = new int[16];
+    private long[] basinSizes;
+    private int[] depths;
+
+    public StateSpace(NetworkDefinition network) {
+        if (network.getSize() > MAX_SIZE) {
+            throw new IllegalArgumentException("State space enumeration supports at most " + MAX_SIZE + " nodes");
+        }
+
+        this.network = network;
+        this.size = network.getSize();
+        this.states = 1L << size;
+    }
+
+    public StateSpace(CompiledNetwork network) {
+        this(network.getDefinition());
+    }
+
+    public StateSpace(BooleanNetwork network) {
+        this(new NetworkDefinition(network));
+    }
+
+    //Successor of a state under the synchronous update
+    public int next(int state) {
+        int[] offsets = network.offsets;
+        int[] inputs = network.inputs;
+        int[] tableOffsets = network.tableOffsets;
+        long[] tables = network.tables;
+
+        int next = 0;
+
+        for (int i = 0; i < size; i++) {
+            int index = 0;
+
+            for (int j = offsets[i], end = offsets[i + 1]; j < end; j++) {
+                index = (index << 1) | (state >>> inputs[j] & 1);
+            }
+
+            next |= (int) (tables[tableOffsets[i] + (index >>> 6)] >>> index & 1) << i;
+        }
+
+        return next;
+    }
+
+    public StateSpace explore() {
+        return explore(Runtime.getRuntime().availableProcessors());
+    }
+
+    //Labels every state with its attractor, then counts basin sizes and depths
+    public StateSpace explore(int parallelism) {
+        if (parallelism < 1 || parallelism >= MAX_WORKERS) {
+            throw new IllegalArgumentException("Parallelism must be between 1 and " + (MAX_WORKERS - 1));
+        }
+
+        allocateLabels();
+        count = 0;
+
+        AtomicLong partitions = new AtomicLong();
+        Worker[] workers = new Worker[parallelism];
+
+        for (int w = 0; w < parallelism; w++) {
+            workers[w] = new Worker(w, partitions);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(workers);
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+
+        //Trajectories that met another worker are resolved here, one at a time
+        Worker sequential = new Worker(SEQUENTIAL, null);
+        for (Worker w : workers) {
+            for (int i = 0; i < w.pending.size; i++) {
+                sequential.walk(w.pending.data[i]);
+            }
+        }
+
+        basinSizes = new long[count];
+        depths = new int[count];
+
+        for (int a = 0; a < count; a++) {
+            basinSizes[a] = periods[a];
+        }
+
+        for (Worker w : workers) {
+            w.mergeInto(basinSizes, depths);
+        }
+        sequential.mergeInto(basinSizes, depths);
+
+        return this;
+    }
+
+    private void allocateLabels() {
+        int segment = 1 << SEGMENT_BITS;
+        int segments = (int) ((states + segment - 1) >>> SEGMENT_BITS);
+
+        labels = new ByteBuffer[segments];
+        depthTable = new ByteBuffer[segments];
+
+        for (int i = 0; i < segments; i++) {
+            long length = Math.min(segment, states - ((long) i << SEGMENT_BITS));
+            labels[i] = ByteBuffer.allocateDirect((int) length * 4).order(ByteOrder.nativeOrder());
+            depthTable[i] = ByteBuffer.allocateDirect((int) length * 2).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    private int label(int state) {
+        return (int) INT.getVolatile(labels[state >>> SEGMENT_BITS], (state & ((1 << SEGMENT_BITS) - 1)) << 2);
+    }
+
+    private void setLabel(int state, int label) {
+        INT.setVolatile(labels[state >>> SEGMENT_BITS], (state & ((1 << SEGMENT_BITS) - 1)) << 2, label);
+    }
+
+    private boolean claim(int state, int label) {
+        return INT.compareAndSet(labels[state >>> SEGMENT_BITS], (state & ((1 << SEGMENT_BITS) - 1)) << 2, UNVISITED, label);
+    }
+
+    private static boolean resolved(int label) {
+        return label > 0 || (label <= CYCLE && label >= WORKER + MAX_WORKERS);
+    }
+
+    private static int attractorOf(int label) {
+        return label > 0 ? label - 1 : CYCLE - label;
+    }
+
+    private synchronized int register(int state, int period) {
+        if (count == representatives.length) {
+            representatives = Arrays.copyOf(representatives, count * 2);
+            periods = Arrays.copyOf(periods, count * 2);
+        }
+
+        representatives[count] = state;
+        periods[count] = period;
+
+        return count++;
+    }
+
+    //Follows one trajectory per unlabelled start state in its partitions
+    private class Worker extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final int mark;
+        final AtomicLong partitions;
+
+        final IntList path = new IntList();
+        final IntList pending = new IntList();
+
+        //Transient states and deepest transient per attractor seen by this worker
+        long[] transients = new long[0];
+        int[] deepest = new int[0];
+
+        Worker(int id, AtomicLong partitions) {
+            this.mark = id == SEQUENTIAL ? SEQUENTIAL : WORKER + id;
+            this.partitions = partitions;
+        }
+
+        @Override
+        protected void compute() {
+            long start;
+
+            while ((start = partitions.getAndAdd(PARTITION)) < states) {
+                long end = Math.min(start + PARTITION, states);
+
+                for (long s = start; s < end; s++) {
+                    if (label((int) s) == UNVISITED) {
+                        walk((int) s);
+                    }
+                }
+            }
+        }
+
+        void walk(int start) {
+            path.size = 0;
+            int state = start;
+
+            while (true) {
+                int label = label(state);
+
+                if (resolved(label)) {
+                    resolve(attractorOf(label), path.size, state);
+                    return;
+                }
+
+                if (label == mark) {
+                    int entry = path.lastIndexOf(state);
+                    int id = register(state, path.size - entry);
+
+                    //Cycle states first so any labelled state only leads to labelled states
+                    for (int i = entry; i < path.size; i++) {
+                        setLabel(path.data[i], CYCLE - id);
+                    }
+
+                    resolve(id, entry, -1);
+                    return;
+                }
+
+                if (mark == SEQUENTIAL) {
+                    setLabel(state, SEQUENTIAL);
+                } else if (label != UNVISITED || !claim(state, mark)) {
+                    //Another worker owns this trajectory, finish it after the parallel pass
+                    for (int i = 0; i < path.size; i++) {
+                        setLabel(path.data[i], BLOCKED);
+                    }
+                    pending.add(start);
+                    return;
+                }
+
+                path.add(state);
+                state = next(state);
+            }
+        }
+
+        //Labels the first length states of the path, which run into join (-1 when they run into the cycle)
+        private void resolve(int id, int length, int join) {
+            if (length == 0) return;
+
+            int depth = join < 0 ? 0 : depth(join);
+
+            //Depths are written before labels so a labelled state always has its depth
+            for (int i = length - 1; i >= 0; i--) {
+                setDepth(path.data[i], depth + length - i);
+                setLabel(path.data[i], id + 1);
+            }
+
+            if (id >= deepest.length) {
+                int grow = Math.max(id + 1, deepest.length * 2);
+                transients = Arrays.copyOf(transients, grow);
+                deepest = Arrays.copyOf(deepest, grow);
+            }
+
+            transients[id] += length;
+            deepest[id] = Math.max(deepest[id], depth + length);
+        }
+
+        void mergeInto(long[] basinSizes, int[] depths) {
+            for (int a = 0; a < Math.min(deepest.length, basinSizes.length); a++) {
+                basinSizes[a] += transients[a];
+                depths[a] = Math.max(depths[a], deepest[a]);
+            }
+        }
+    }
+
+    //Distance from a labelled state to its attractor, stored depths saturate at SATURATED
+    private int depth(int state) {
+        int depth = 0;
+
+        while (label(state) > 0) {
+            int stored = storedDepth(state);
+
+            if (stored < SATURATED) {
+                return depth + stored;
+            }
+
+            state = next(state);
+            depth++;
+        }
+
+        return depth;
+    }
+
+    private int storedDepth(int state) {
+        return depthTable[state >>> SEGMENT_BITS].getChar((state & ((1 << SEGMENT_BITS) - 1)) << 1);
+    }
+
+    private void setDepth(int state, int depth) {
+        depthTable[state >>> SEGMENT_BITS].putChar((state & ((1 << SEGMENT_BITS) - 1)) << 1, (char) Math.min(depth, SATURATED));
+    }
+
+    //Growable int array for paths and pending start states
+    private static class IntList {
+        int[] data = new int[64];
+        int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        int lastIndexOf(int value) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (data[i] == value) return i;
+            }
+            return -1;
+        }
+    }
+
+    /* Getter Methods */
+
+    public int getAttractorCount() {
+        return count;
+    }
+
+    //Attractor index of any state, only valid after explore()
+    public int getAttractor(int state) {
+        return attractorOf(label(state));
+    }
+
+    public boolean isOnAttractor(int state) {
+        return label(state) <= CYCLE;
+    }
+
+    public int getPeriod(int attractor) {
+        return periods[attractor];
+    }
+
+    //Number of states, cycle included, that end in the attractor
+    public long getBasinSize(int attractor) {
+        return basinSizes[attractor];
+    }
+
+    //Longest transient leading into the attractor
+    public int getDepth(int attractor) {
+        return depths[attractor];
+    }
+
+    //States of the cycle in order
+    public int[] getAttractorStates(int attractor) {
+        int[] cycle = new int[periods[attractor]];
+        int state = representatives[attractor];
+
+        for (int i = 0; i < cycle.length; i++) {
+            cycle[i] = state;
+            state = next(state);
+        }
+
+        return cycle;
+    }
+
+    public List<int[]> getAttractors() {
+        List<int[]> attractors = new ArrayList<>(count);
+        for (int a = 0; a < count; a++) {
+            attractors.add(getAttractorStates(a));
+        }
+        return attractors;
+    }
+
+    public static int encode(int[] state) {
+        int encoded = 0;
+        for (int i = 0; i < state.length; i++) {
+            if (state[i] > 0) encoded |= 1 << i;
+        }
+        return encoded;
+    }
+
+    public static int[] decode(int state, int size) {
+        int[] decoded = new int[size];
+        for (int i = 0; i < size; i++) {
+            decoded[i] = state >>> i & 1;
+        }
+        return decoded;
+    }
+}
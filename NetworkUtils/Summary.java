@@ -0,0 +1,79 @@
+package NetworkUtils;
+
+/**     Sample statistics for a set of independent values: mean, unbiased variance and a 95%
+ *  confidence interval for the mean (Student t for small samples).
+ */
+
+public class Summary {
+
+    //Two sided 95% t critical values for 1 to 30 degrees of freedom
+    private static final double[] T95 = {
+            12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+
+    final double[] values;
+    final double mean;
+    final double variance;
+
+    public Summary(double[] values) {
+        this.values = values;
+
+        //Welford's update keeps the variance accurate for large means
+        double mean = 0, m2 = 0;
+
+        for (int i = 0; i < values.length; i++) {
+            double delta = values[i] - mean;
+            mean += delta / (i + 1);
+            m2 += delta * (values[i] - mean);
+        }
+
+        this.mean = values.length > 0 ? mean : Double.NaN;
+        this.variance = values.length > 1 ? m2 / (values.length - 1) : Double.NaN;
+    }
+
+    public int getCount() {
+        return values.length;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getVariance() {
+        return variance;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(variance);
+    }
+
+    public double getStandardError() {
+        return Math.sqrt(variance / values.length);
+    }
+
+    //Half width of the 95% confidence interval for the mean
+    public double getConfidence() {
+        int df = values.length - 1;
+        double t = df < 1 ? Double.NaN : df <= T95.length ? T95[df - 1] : 1.96;
+
+        return t * getStandardError();
+    }
+
+    public double getLower() {
+        return mean - getConfidence();
+    }
+
+    public double getUpper() {
+        return mean + getConfidence();
+    }
+
+    public double[] getValues() {
+        return values.clone();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.6f +/- %.6f (n = %d, variance %.6f)", mean, getConfidence(), values.length, variance);
+    }
+}
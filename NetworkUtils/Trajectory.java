@@ -0,0 +1,126 @@
+package NetworkUtils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**     Memory mapped reader for files written by TrajectoryRecorder. A state is rebuilt from the
+ *  nearest keyframe at or before it, and reading forward continues from the last decoded frame.
+ */
+
+public class Trajectory implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final MappedInput in;
+
+    final int size;
+    final int interval;
+    final int frames;
+    final long[] offsets;
+
+    //Last decoded frame
+    private final long[] state;
+    private int decoded = -1;
+
+    public Trajectory(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            in = new MappedInput(channel);
+
+            if (in.getInt() != TrajectoryRecorder.MAGIC) {
+                throw new IOException(path + " is not a trajectory file");
+            }
+
+            int version = in.getInt();
+            if (version != TrajectoryRecorder.VERSION) {
+                throw new IOException("Unsupported trajectory version " + version);
+            }
+
+            size = in.getInt();
+            interval = in.getInt();
+            frames = in.getInt();
+            long index = in.getLong();
+
+            if (index == 0) {
+                throw new IOException(path + " was not closed after recording");
+            }
+
+            offsets = new long[frames];
+            in.seek(index);
+            in.getLongs(offsets);
+
+            state = new long[(size + 63) >>> 6];
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static Trajectory open(Path path) throws IOException {
+        return new Trajectory(path);
+    }
+
+    //Copies the packed state at a step into words
+    public long[] getPackedState(int step, long[] words) throws IOException {
+        if (step < 0 || step >= frames) {
+            throw new IndexOutOfBoundsException("Step " + step + " of " + frames);
+        }
+
+        int keyframe = step - step % interval;
+        int from = decoded >= keyframe && decoded <= step ? decoded + 1 : keyframe;
+
+        for (int f = from; f <= step; f++) {
+            readFrame(f);
+        }
+        decoded = step;
+
+        System.arraycopy(state, 0, words, 0, state.length);
+        return words;
+    }
+
+    public long[] getPackedState(int step) throws IOException {
+        return getPackedState(step, new long[state.length]);
+    }
+
+    public int[] getState(int step) throws IOException {
+        long[] words = getPackedState(step);
+
+        int[] unpacked = new int[size];
+        for (int i = 0; i < size; i++) {
+            unpacked[i] = (int) (words[i >>> 6] >>> i & 1);
+        }
+        return unpacked;
+    }
+
+    private void readFrame(int frame) throws IOException {
+        in.seek(offsets[frame]);
+        byte type = in.getByte();
+
+        if (type == TrajectoryRecorder.KEYFRAME) {
+            in.getLongs(state);
+        } else if (type == TrajectoryRecorder.DELTA) {
+            int changed = in.getInt();
+            for (int i = 0; i < changed; i++) {
+                int w = in.getInt();
+                state[w] ^= in.getLong();
+            }
+        } else {
+            throw new IOException("Corrupt frame " + frame);
+        }
+    }
+
+    public int getFrames() {
+        return frames;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,163 @@
+package NetworkUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**     Records a trajectory as bit packed frames. Every keyframe stores the full state, the frames
+ *  in between only store the words that changed (XOR against the previous frame), so frozen or
+ *  nearly frozen networks cost a few bytes per step. An index of frame offsets is written on
+ *  close so Trajectory can jump to any step.
+ *
+ *  Layout (little endian): magic, version, N, keyframe interval, frames, index offset, frames...,
+ *  index. Keyframe: 0, words. Delta frame: 1, changed word count, (word index, xor) pairs. A frame
+ *  whose delta would be larger than the state is written as a keyframe.
+ */
+
+public class TrajectoryRecorder implements AutoCloseable {
+
+    static final int MAGIC = 0x314A5442; //"BTJ1"
+    static final int VERSION = 1;
+
+    static final byte KEYFRAME = 0, DELTA = 1;
+
+    private final FileChannel channel;
+    private final ChannelOutput out;
+
+    final int size;
+    final int interval;
+
+    private long[] previous;
+    private long[] current;
+
+    private long[] offsets = new long[1024];
+    private int frames;
+
+    public TrajectoryRecorder(Path path, int size) throws IOException {
+        this(path, size, 256);
+    }
+
+    //A keyframe every interval frames bounds the number of deltas applied on random access
+    public TrajectoryRecorder(Path path, int size, int interval) throws IOException {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Keyframe interval must be positive");
+        }
+
+        this.size = size;
+        this.interval = interval;
+        this.previous = new long[(size + 63) >>> 6];
+        this.current = new long[previous.length];
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        out = new ChannelOutput(channel);
+
+        //Frame count and index offset are filled in on close
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putInt(size);
+        out.putInt(interval);
+        out.putInt(0);
+        out.putLong(0);
+    }
+
+    public TrajectoryRecorder record(BooleanNetwork network) throws IOException {
+        checkSize(network.getSize());
+        network.packState(current);
+        return writeFrame();
+    }
+
+    public TrajectoryRecorder record(CompiledNetwork network) throws IOException {
+        checkSize(network.getSize());
+        network.packState(current);
+        return writeFrame();
+    }
+
+    //Records a state packed 64 nodes per word, node i is bit (i & 63) of word i >>> 6
+    public TrajectoryRecorder record(long[] state) throws IOException {
+        if (state.length != current.length) {
+            throw new IllegalArgumentException("Expected " + current.length + " state words, got " + state.length);
+        }
+        System.arraycopy(state, 0, current, 0, current.length);
+        return writeFrame();
+    }
+
+    private void checkSize(int networkSize) {
+        if (networkSize != size) {
+            throw new IllegalArgumentException("Recorder is for " + size + " nodes, network has " + networkSize);
+        }
+    }
+
+    private TrajectoryRecorder writeFrame() throws IOException {
+        if (frames == offsets.length) {
+            offsets = Arrays.copyOf(offsets, frames * 2);
+        }
+        offsets[frames] = out.position();
+
+        int changed = 0;
+        for (int w = 0; w < current.length; w++) {
+            if (current[w] != previous[w]) changed++;
+        }
+
+        //Frames where a delta would not be smaller are stored whole
+        if (frames % interval == 0 || changed * 12 + 4 >= current.length * 8) {
+            out.putByte(KEYFRAME);
+            for (long word : current) {
+                out.putLong(word);
+            }
+        } else {
+            out.putByte(DELTA);
+            out.putInt(changed);
+
+            for (int w = 0; w < current.length && changed > 0; w++) {
+                long diff = current[w] ^ previous[w];
+                if (diff != 0) {
+                    out.putInt(w);
+                    out.putLong(diff);
+                    changed--;
+                }
+            }
+        }
+
+        long[] swap = previous;
+        previous = current;
+        current = swap;
+        frames++;
+
+        return this;
+    }
+
+    public int getFrames() {
+        return frames;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    //Writes the frame index and completes the header
+    @Override
+    public void close() throws IOException {
+        try {
+            long index = out.position();
+
+            for (int i = 0; i < frames; i++) {
+                out.putLong(offsets[i]);
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(frames).putLong(index).flip();
+
+            while (header.hasRemaining()) {
+                channel.write(header, 16 + header.position());
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
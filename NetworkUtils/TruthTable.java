@@ -0,0 +1,24 @@
+package NetworkUtils;
+
+/**     What a node needs from its rule: entry i is the next state for input index i, the first
+ *  input being the most significant bit. Rule is the mutable byte table, PackedRule the immutable
+ *  bit table that may be shared between nodes and networks.
+ */
+
+public interface TruthTable {
+
+    byte getRule(int i);
+
+    int getEntries();
+
+    void printRules();
+
+    //Entries as a new byte table
+    default byte[] toBytes() {
+        byte[] table = new byte[getEntries()];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = getRule(i);
+        }
+        return table;
+    }
+}
@@ -0,0 +1,47 @@
+package NetworkUtils.bench;
+
+import NetworkUtils.NetworkDistribution;
+import NetworkUtils.Networks;
+import NetworkUtils.SD;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Topology and degree sequence generation
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GenerationBenchmark {
+
+    @Param({"1000", "100000"})
+    int n;
+
+    @Param({"2", "3"})
+    double k;
+
+    @Param({"10"})
+    int maxK;
+
+    //Power law exponent for the scale free generator
+    @Param({"2.5"})
+    double s;
+
+    @Benchmark
+    public int[][] randomTopology() {
+        return Networks.randomTopology(n, k, maxK);
+    }
+
+    @Benchmark
+    public List<SD> scaleFreeNetwork() {
+        return NetworkDistribution.getNetwork(s, n, maxK);
+    }
+
+    @Benchmark
+    public int[][] scaleFreeEdges() {
+        return NetworkDistribution.getEdges(s, n, maxK);
+    }
+}
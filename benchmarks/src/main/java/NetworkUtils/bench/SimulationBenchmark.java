@@ -0,0 +1,90 @@
+package NetworkUtils.bench;
+
+import NetworkUtils.BooleanNetwork;
+import NetworkUtils.CompiledNetwork;
+import NetworkUtils.Networks;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//Update schemes of the object model network, with the compiled engine for comparison
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SimulationBenchmark {
+
+    @Param({"1000", "100000"})
+    int n;
+
+    @Param({"2", "3"})
+    double k;
+
+    @Param({"10"})
+    int maxK;
+
+    BooleanNetwork network;
+    CompiledNetwork compiled;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        network = new BooleanNetwork()
+                .setNetwork(Networks.randomTopology(n, k, maxK))
+                .generateRandomRules()
+                .setState(Networks.randomState(n))
+                .initOutputNodes();
+
+        compiled = network.compile();
+    }
+
+    @Benchmark
+    public void update() {
+        network.update();
+    }
+
+    @Benchmark
+    public void compiledUpdate() {
+        compiled.update();
+    }
+
+    //One asynchronous sweep, n single node updates
+    @Benchmark
+    public void asyncUpdate() {
+        for (int i = 0; i < n; i++) {
+            network.asyncUpdate();
+        }
+    }
+
+    @Benchmark
+    public void asyncSweep() {
+        network.asyncSweep();
+    }
+
+    @Benchmark
+    public void compiledAsyncSweep() {
+        compiled.asyncSweep();
+    }
+
+    @Benchmark
+    public void compiledRandomOrderUpdate() {
+        compiled.randomOrderUpdate();
+    }
+
+    //Ten cascade steps from a single perturbed node
+    @Benchmark
+    public void cascadeUpdate() {
+        network.setUpdateNodes(ThreadLocalRandom.current().nextInt(n));
+
+        for (int i = 0; i < 10; i++) {
+            network.cascadeUpdate();
+        }
+    }
+
+    @Benchmark
+    public BooleanNetwork initOutputNodes() {
+        return network.initOutputNodes();
+    }
+}
@@ -0,0 +1,42 @@
+package NetworkUtils.bench;
+
+import NetworkUtils.BooleanNetwork;
+import NetworkUtils.NetworkStats;
+import NetworkUtils.Networks;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+//Fitness functions used by the GA experiments
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StatsBenchmark {
+
+    @Param({"1000", "10000"})
+    int n;
+
+    @Param({"2", "3"})
+    double k;
+
+    @Param({"10"})
+    int maxK;
+
+    BooleanNetwork network;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        network = new BooleanNetwork()
+                .setNetwork(Networks.randomTopology(n, k, maxK))
+                .generateRandomRules();
+    }
+
+    //One density trial: random seed, 100 synchronous steps, fraction in the majority state
+    @Benchmark
+    public double densityFitness() {
+        return NetworkStats.densityFitness(network, 1);
+    }
+}
@@ -0,0 +1,114 @@
+package NetworkUtils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//The calendar queue against updating every due node by scanning all nodes at each tick
+class DeterministicSchedulerTest {
+
+    static final int N = 400;
+    static final int TICKS = 300;
+
+    final SplittableRandom rand = new SplittableRandom(19);
+    final int[][] topology = Networks.randomTopology(N, 2, rand);
+    final byte[][] rules = Networks.randomRulesetByte(N, 2, rand);
+    final int[] start = Networks.randomState(N, rand);
+    final int[][] timing = DeterministicScheduler.randomTiming(N, 7, rand);
+
+    //One tick by definition: nodes with t mod period == phase, in index order or all at once
+    static void tick(NetworkDefinition network, int[] state, int[][] timing, long t, boolean synchronous) {
+        int[] old = state.clone();
+
+        for (int i = 0; i < state.length; i++) {
+            if (t % timing[0][i] != timing[1][i]) continue;
+
+            int[] read = synchronous ? old : state;
+            int[] inputs = network.getInputs(i);
+            int index = 0;
+
+            for (int src : inputs) {
+                index = index << 1 | read[src];
+            }
+
+            state[i] = inputs.length == 0 ? 0 : network.getRule(i, index);
+        }
+    }
+
+    void check(DeterministicScheduler.Mode mode) {
+        NetworkDefinition definition = new NetworkDefinition(topology, rules);
+        CompiledNetwork compiled = definition.newHandle().setState(start);
+        BooleanNetwork network = new BooleanNetwork().setNetwork(topology).setRules(rules).setState(start);
+
+        DeterministicScheduler compiledScheduler = new DeterministicScheduler(compiled, timing[0], timing[1]).setMode(mode);
+        DeterministicScheduler scheduler = new DeterministicScheduler(network, timing[0], timing[1]).setMode(mode);
+
+        int[] expected = start.clone();
+
+        for (long t = 0; t < TICKS; t++) {
+            tick(definition, expected, timing, t, mode == DeterministicScheduler.Mode.DGARBN);
+            compiledScheduler.run();
+            scheduler.run();
+
+            assertArrayEquals(expected, compiled.getState(), mode + " compiled, tick " + t);
+            assertArrayEquals(expected, network.getState(), mode + " object model, tick " + t);
+        }
+
+        assertEquals(TICKS, scheduler.getTime());
+    }
+
+    @Test
+    void darbnUpdatesDueNodesInIndexOrder() {
+        check(DeterministicScheduler.Mode.DARBN);
+    }
+
+    @Test
+    void dgarbnUpdatesDueNodesTogether() {
+        check(DeterministicScheduler.Mode.DGARBN);
+    }
+
+    @Test
+    void periodOneIsTheClassicalUpdates() {
+        int[] ones = new int[N];
+        int[] zeros = new int[N];
+        Arrays.fill(ones, 1);
+
+        CompiledNetwork synchronous = new CompiledNetwork(topology, rules).setState(start);
+        CompiledNetwork scheduled = new CompiledNetwork(topology, rules).setState(start);
+        DeterministicScheduler dgarbn = new DeterministicScheduler(scheduled, ones, zeros)
+                .setMode(DeterministicScheduler.Mode.DGARBN);
+
+        CompiledNetwork sequential = new CompiledNetwork(topology, rules).setState(start);
+        CompiledNetwork ordered = new CompiledNetwork(topology, rules).setState(start);
+        DeterministicScheduler darbn = new DeterministicScheduler(ordered, ones, zeros);
+
+        for (int t = 0; t < 50; t++) {
+            synchronous.update();
+            dgarbn.run();
+            sequential.sequentialUpdate();
+            darbn.run();
+
+            assertArrayEquals(synchronous.getState(), scheduled.getState(), "tick " + t);
+            assertArrayEquals(sequential.getState(), ordered.getState(), "tick " + t);
+        }
+    }
+
+    @Test
+    void resetReplaysTheSameTrajectory() {
+        CompiledNetwork network = new CompiledNetwork(topology, rules).setState(start);
+        DeterministicScheduler scheduler = new DeterministicScheduler(network, timing[0], timing[1]);
+
+        network.iterate(scheduler, 100);
+        int[] first = network.getState();
+
+        scheduler.reset();
+        network.setState(start).iterate(scheduler, 100);
+
+        assertArrayEquals(first, network.getState());
+        assertEquals(100, scheduler.getTime());
+    }
+}
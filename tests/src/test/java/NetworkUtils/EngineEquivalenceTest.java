@@ -0,0 +1,100 @@
+package NetworkUtils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+//The object model, the compiled engine, the parallel update and the 64 replica ensemble run the same dynamics
+class EngineEquivalenceTest {
+
+    static final int N = 3000;
+    static final int STEPS = 40;
+
+    final SplittableRandom rand = new SplittableRandom(18);
+    final int[][] topology = Networks.randomTopology(N, 2.5, 6, rand);
+    final byte[][] rules = Networks.randomRulesetByte(N, 6, rand);
+    final int[] start = Networks.randomState(N, rand);
+
+    BooleanNetwork objectModel() {
+        return new BooleanNetwork().setNetwork(topology).setRules(rules).setState(start);
+    }
+
+    @Test
+    void synchronousUpdateMatchesStepByStep() {
+        BooleanNetwork network = objectModel();
+        BooleanNetwork parallel = objectModel().setParallel(4, 256);
+        CompiledNetwork compiled = new CompiledNetwork(topology, rules).setState(start);
+        CompiledNetwork interned = objectModel().internRules().compile();
+
+        try {
+            for (int step = 0; step < STEPS; step++) {
+                network.update();
+                parallel.iterate(1);
+                compiled.update();
+                interned.update();
+
+                int[] expected = network.getState();
+                assertArrayEquals(expected, parallel.getState(), "parallel, step " + step);
+                assertArrayEquals(expected, compiled.getState(), "compiled, step " + step);
+                assertArrayEquals(expected, interned.getState(), "interned, step " + step);
+            }
+        } finally {
+            parallel.setSequential();
+        }
+    }
+
+    @Test
+    void sequentialUpdateMatches() {
+        BooleanNetwork network = objectModel();
+        CompiledNetwork compiled = new CompiledNetwork(topology, rules).setState(start);
+
+        for (int step = 0; step < STEPS; step++) {
+            network.sequentialUpdate();
+            compiled.sequentialUpdate();
+            assertArrayEquals(network.getState(), compiled.getState(), "step " + step);
+        }
+    }
+
+    @Test
+    void attractorsMatch() {
+        int[][] small = Networks.randomTopology(200, 2, rand);
+        byte[][] smallRules = Networks.randomRulesetByte(200, 2, rand);
+        int[] smallStart = Networks.randomState(200, rand);
+
+        BooleanNetwork network = new BooleanNetwork().setNetwork(small).setRules(smallRules).setState(smallStart);
+        CompiledNetwork compiled = new CompiledNetwork(small, smallRules).setState(smallStart);
+
+        Attractor expected = network.findAttractor(100000);
+        Attractor actual = compiled.findAttractor(100000);
+
+        assertNotNull(expected);
+        assertNotNull(actual);
+        assertEquals(expected.getPeriod(), actual.getPeriod());
+        assertEquals(expected.getTransient(), actual.getTransient());
+        assertArrayEquals(network.getState(), compiled.getState());
+    }
+
+    @Test
+    void ensembleReplicasMatchCompiledRuns() {
+        NetworkDefinition definition = new NetworkDefinition(topology, rules);
+        EnsembleNetwork ensemble = new EnsembleNetwork(definition);
+        CompiledNetwork[] replicas = new CompiledNetwork[EnsembleNetwork.REPLICAS];
+
+        for (int r = 0; r < replicas.length; r++) {
+            int[] state = Networks.randomState(N, rand);
+            ensemble.setReplicaState(r, state);
+            replicas[r] = definition.newHandle().setState(state);
+        }
+
+        ensemble.iterate(STEPS);
+
+        for (int r = 0; r < replicas.length; r++) {
+            replicas[r].iterate(STEPS);
+            assertArrayEquals(replicas[r].getState(), ensemble.getReplicaState(r), "replica " + r);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package NetworkUtils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//Replica bookkeeping of the bit parallel simulator against plain state arrays
+class EnsembleNetworkTest {
+
+    static final int N = 700;
+
+    final SplittableRandom rand = new SplittableRandom(2);
+    final NetworkDefinition definition = new NetworkDefinition(
+            Networks.randomTopology(N, 2, rand), Networks.randomRulesetByte(N, 2, rand));
+
+    static int distance(int[] a, int[] b) {
+        int distance = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) distance++;
+        }
+        return distance;
+    }
+
+    @Test
+    void replicaStatesAreIndependent() {
+        EnsembleNetwork ensemble = new EnsembleNetwork(definition);
+        int[][] states = new int[EnsembleNetwork.REPLICAS][];
+
+        for (int r = 0; r < states.length; r++) {
+            states[r] = Networks.randomState(N, rand);
+            ensemble.setReplicaState(r, states[r]);
+        }
+
+        for (int r = 0; r < states.length; r++) {
+            assertArrayEquals(states[r], ensemble.getReplicaState(r), "replica " + r);
+        }
+    }
+
+    @Test
+    void hammingDistancesMatchPairwiseComparison() {
+        EnsembleNetwork ensemble = new EnsembleNetwork(definition).randomState().iterate(10);
+        int reference = 37;
+
+        int[] distances = ensemble.hammingDistances(reference);
+        int[] base = ensemble.getReplicaState(reference);
+
+        for (int r = 0; r < EnsembleNetwork.REPLICAS; r++) {
+            int expected = distance(base, ensemble.getReplicaState(r));
+            assertEquals(expected, distances[r], "replica " + r);
+            assertEquals(expected, ensemble.hammingDistance(reference, r), "replica " + r);
+        }
+    }
+
+    @Test
+    void perturbedReplicaFollowsItsOwnTrajectory() {
+        int[] start = Networks.randomState(N, rand);
+        EnsembleNetwork ensemble = new EnsembleNetwork(definition).setState(start).perturb(5, 123);
+
+        int[] perturbed = start.clone();
+        perturbed[123] ^= 1;
+
+        CompiledNetwork original = definition.newHandle().setState(start).iterate(30);
+        CompiledNetwork damaged = definition.newHandle().setState(perturbed).iterate(30);
+        ensemble.iterate(30);
+
+        assertArrayEquals(original.getState(), ensemble.getReplicaState(0));
+        assertArrayEquals(damaged.getState(), ensemble.getReplicaState(5));
+        assertEquals(distance(original.getState(), damaged.getState()), ensemble.hammingDistance(0, 5));
+    }
+}
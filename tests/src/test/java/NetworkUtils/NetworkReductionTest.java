@@ -0,0 +1,107 @@
+package NetworkUtils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//The reduced network, expanded back, has exactly the attractors of the original
+class NetworkReductionTest {
+
+    //Each attractor as the set of its encoded cycle states
+    static Set<Set<Integer>> attractors(StateSpace space) {
+        Set<Set<Integer>> attractors = new HashSet<>();
+        for (int[] cycle : space.getAttractors()) {
+            Set<Integer> states = new TreeSet<>();
+            for (int s : cycle) states.add(s);
+            attractors.add(states);
+        }
+        return attractors;
+    }
+
+    static Set<Set<Integer>> expandedAttractors(NetworkReduction reduction) {
+        NetworkDefinition core = reduction.getReduced();
+        Set<Set<Integer>> attractors = new HashSet<>();
+
+        if (core.getSize() == 0) {
+            Attractor empty = new CompiledNetwork(core).findAttractor();
+            attractors.add(encode(reduction.expandAttractor(empty)));
+            return attractors;
+        }
+
+        StateSpace space = new StateSpace(core).explore(2);
+
+        for (int[] cycle : space.getAttractors()) {
+            CompiledNetwork handle = core.newHandle().setState(StateSpace.decode(cycle[0], core.getSize()));
+            Attractor attractor = handle.findAttractor();
+
+            assertEquals(0, attractor.getTransient());
+            attractors.add(encode(reduction.expandAttractor(attractor)));
+        }
+
+        return attractors;
+    }
+
+    static Set<Integer> encode(Attractor attractor) {
+        Set<Integer> states = new TreeSet<>();
+        for (int[] state : attractor.getStates()) {
+            states.add(StateSpace.encode(state));
+        }
+        return states;
+    }
+
+    static void check(int size, double k, int maxk, long seed) {
+        SplittableRandom rand = new SplittableRandom(seed);
+        NetworkDefinition network = new NetworkDefinition(
+                Networks.randomTopology(size, k, maxk, rand), Networks.randomRulesetByte(size, maxk, rand));
+
+        NetworkReduction reduction = network.reduce();
+        StateSpace space = new StateSpace(network).explore(2);
+
+        assertTrue(reduction.getCoreSize() <= size);
+        assertEquals(attractors(space), expandedAttractors(reduction), "seed " + seed + ", " + reduction);
+    }
+
+    @Test
+    void orderedNetworksKeepTheirAttractors() {
+        for (long seed = 0; seed < 20; seed++) {
+            check(14, 1.5, 4, seed);
+        }
+    }
+
+    @Test
+    void criticalNetworksKeepTheirAttractors() {
+        for (long seed = 0; seed < 20; seed++) {
+            check(14, 2, 4, seed);
+        }
+    }
+
+    @Test
+    void denseNetworksKeepTheirAttractors() {
+        for (long seed = 0; seed < 10; seed++) {
+            check(12, 3, 5, seed);
+        }
+    }
+
+    //x0 = x0, x1 = NOT x1, x2 = x0 ignoring its input x1 and feeding nothing, x3 has no inputs, x4 = x3 OR x0
+    @Test
+    void handBuiltNetwork() {
+        int[][] topology = {{0}, {1}, {0, 1}, {}, {3, 0}};
+        byte[][] rules = {{0, 1}, {1, 0}, {0, 0, 1, 1}, {0}, {0, 1, 1, 1}};
+
+        NetworkReduction reduction = new NetworkDefinition(topology, rules).reduce();
+
+        assertEquals(0, reduction.getFrozenValue(3));
+        assertEquals(-1, reduction.getReducedId(2));
+        assertEquals(-1, reduction.getReducedId(4));
+        assertArrayEquals(new int[]{0, 1}, reduction.getOriginalIds());
+        assertEquals(2, reduction.getRemovedCount());
+        assertEquals(1, reduction.getStrippedInputs());
+    }
+}
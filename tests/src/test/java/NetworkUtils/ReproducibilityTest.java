@@ -0,0 +1,100 @@
+package NetworkUtils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+//Seeded generators and experiments give the same output for a seed, whatever the threads do
+class ReproducibilityTest {
+
+    //Larger than one seed chunk, so several streams fill it in parallel
+    static final int N = 3 * Networks.SEED_CHUNK + 17;
+
+    @Test
+    void seededGeneratorsRepeat() {
+        for (int repeat = 0; repeat < 3; repeat++) {
+            assertArrayEquals(Networks.randomTopology(N, 2.5, 8, new SplittableRandom(1)),
+                    Networks.randomTopology(N, 2.5, 8, new SplittableRandom(1)));
+            assertArrayEquals(Networks.randomTopology(N, 3, new SplittableRandom(2)),
+                    Networks.randomTopology(N, 3, new SplittableRandom(2)));
+            assertArrayEquals(Networks.randomRulesetByte(N, 3, new SplittableRandom(3)),
+                    Networks.randomRulesetByte(N, 3, new SplittableRandom(3)));
+            assertArrayEquals(Networks.randomState(N, new SplittableRandom(4)),
+                    Networks.randomState(N, new SplittableRandom(4)));
+            assertArrayEquals(Networks.randomState(N, 0.3, new SplittableRandom(5)),
+                    Networks.randomState(N, 0.3, new SplittableRandom(5)));
+        }
+    }
+
+    @Test
+    void seededRulesetsAgreeAcrossForms() {
+        int[][] topology = Networks.randomTopology(N, 3, new SplittableRandom(6));
+        Rule[] rules = Networks.randomRuleset(N, 3, new SplittableRandom(7));
+        byte[][] bytes = Networks.randomRulesetByte(N, 3, new SplittableRandom(7));
+
+        for (int i = 0; i < N; i++) {
+            assertArrayEquals(bytes[i], rules[i].getRuleTable(), "node " + i);
+        }
+
+        PackedRule[] packed = Networks.randomRulesetPacked(topology, new SplittableRandom(8));
+        PackedRule[] again = Networks.randomRulesetPacked(topology, new SplittableRandom(8));
+        assertArrayEquals(packed, again);
+    }
+
+    @Test
+    void differentSeedsDiffer() {
+        assertFalse(Arrays.equals(Networks.randomState(N, new SplittableRandom(1)),
+                Networks.randomState(N, new SplittableRandom(2))));
+    }
+
+    @Test
+    void experimentsDoNotDependOnThreadsOrRunBlocks() {
+        double[] means = new double[4];
+        int[][] settings = {{1, 16}, {4, 16}, {8, 3}, {3, 100}};
+
+        for (int i = 0; i < settings.length; i++) {
+            Summary summary = new Experiment()
+                    .setFactory(Experiment.randomNetworks(300, 2.5, 6))
+                    .setMeasurement(Experiment.hamming(50))
+                    .setNetworks(6)
+                    .setRuns(40)
+                    .setParallelism(settings[i][0])
+                    .setRunBlock(settings[i][1])
+                    .setSeed(42)
+                    .run();
+
+            means[i] = summary.getMean();
+        }
+
+        for (int i = 1; i < means.length; i++) {
+            assertEquals(means[0], means[i], 0, "parallelism " + settings[i][0] + ", run block " + settings[i][1]);
+        }
+    }
+
+    @Test
+    void asyncUpdatesRepeatForASeed() {
+        NetworkDefinition definition = new NetworkDefinition(
+                Networks.randomTopology(500, 2, new SplittableRandom(9)),
+                Networks.randomRulesetByte(500, 2, new SplittableRandom(10)));
+        int[] start = Networks.randomState(500, new SplittableRandom(11));
+
+        CompiledNetwork a = definition.newHandle().setSeed(12).setState(start);
+        CompiledNetwork b = definition.newHandle().setSeed(12).setState(start);
+
+        for (int step = 0; step < 20; step++) {
+            a.asyncSweep();
+            a.randomOrderUpdate();
+            a.asyncUpdate();
+            b.asyncSweep();
+            b.randomOrderUpdate();
+            b.asyncUpdate();
+        }
+
+        assertArrayEquals(a.getState(), b.getState());
+    }
+}
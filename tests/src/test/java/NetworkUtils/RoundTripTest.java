@@ -0,0 +1,208 @@
+package NetworkUtils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//What is written comes back unchanged, and corrupt files are refused
+class RoundTripTest {
+
+    static final int N = 500;
+
+    @TempDir
+    Path dir;
+
+    final SplittableRandom rand = new SplittableRandom(10);
+    final int[][] topology = Networks.randomTopology(N, 3, rand);
+    final byte[][] rules = Networks.randomRulesetByte(N, 3, rand);
+    final int[] state = Networks.randomState(N, rand);
+
+    /* Snapshots */
+
+    @Test
+    void snapshotKeepsTopologyRulesAndState() throws IOException {
+        Path path = dir.resolve("network.bsn");
+        NetworkSnapshot.write(path, topology, rules, state);
+
+        NetworkSnapshot snapshot = NetworkSnapshot.read(path);
+
+        assertArrayEquals(topology, snapshot.getTopology());
+        assertArrayEquals(rules, snapshot.getRules());
+        assertArrayEquals(state, snapshot.getState());
+    }
+
+    @Test
+    void snapshotKeepsNonBinaryValuesAndMissingParts() throws IOException {
+        Path path = dir.resolve("network.bsn");
+        byte[][] wide = {{0, 2}, null, {}};
+        int[][] small = {{1}, {}, {0, 1}};
+
+        NetworkSnapshot.write(path, small, wide, null);
+        NetworkSnapshot snapshot = NetworkSnapshot.read(path);
+
+        assertArrayEquals(small, snapshot.getTopology());
+        assertArrayEquals(wide, snapshot.getRules());
+        assertNull(snapshot.getState());
+    }
+
+    @Test
+    void snapshotOfObjectModelCompilesToTheSameNetwork() throws IOException {
+        Path path = dir.resolve("network.bsn");
+        BooleanNetwork network = new BooleanNetwork().setNetwork(topology).setRules(rules).setState(state);
+        NetworkSnapshot.write(path, network);
+
+        CompiledNetwork compiled = NetworkSnapshot.read(path).compile();
+        network.iterate(20);
+        compiled.iterate(20);
+
+        assertArrayEquals(network.getState(), compiled.getState());
+    }
+
+    @Test
+    void corruptSnapshotsAreRefused() throws IOException {
+        Path path = dir.resolve("network.bsn");
+        NetworkSnapshot.write(path, topology, rules, state);
+        byte[] bytes = Files.readAllBytes(path);
+
+        //Node count, first row length, first input id
+        int[][] patches = {{12, Integer.MAX_VALUE}, {16, -1}, {16, 1 << 28}, {16 + 4 * N, N}};
+
+        for (int[] patch : patches) {
+            byte[] corrupt = bytes.clone();
+            ByteBuffer.wrap(corrupt).order(ByteOrder.LITTLE_ENDIAN).putInt(patch[0], patch[1]);
+            Files.write(path, corrupt);
+
+            IOException e = assertThrows(IOException.class, () -> NetworkSnapshot.read(path));
+            assertTrue(e.getMessage().startsWith("Corrupt snapshot"), e.getMessage());
+        }
+
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> NetworkSnapshot.read(path));
+    }
+
+    @Test
+    void snapshotWithoutRulesDoesNotCompile() {
+        assertThrows(IllegalStateException.class, () -> new NetworkSnapshot(topology, null, null).compile());
+    }
+
+    /* Trajectories */
+
+    @Test
+    void trajectoryGivesBackEveryState() throws IOException {
+        Path path = dir.resolve("run.traj");
+        CompiledNetwork network = new CompiledNetwork(topology, rules).setState(state);
+        List<int[]> states = new ArrayList<>();
+
+        try (TrajectoryRecorder recorder = new TrajectoryRecorder(path, N, 16)) {
+            recorder.record(network);
+            states.add(network.getState());
+
+            for (int step = 0; step < 100; step++) {
+                network.update();
+                recorder.record(network);
+                states.add(network.getState());
+            }
+        }
+
+        try (Trajectory trajectory = Trajectory.open(path)) {
+            assertEquals(states.size(), trajectory.getFrames());
+            assertEquals(N, trajectory.getSize());
+
+            for (int step = 0; step < states.size(); step++) {
+                assertArrayEquals(states.get(step), trajectory.getState(step), "step " + step);
+            }
+
+            //Backwards, so every read starts from a keyframe again
+            for (int step = states.size() - 1; step >= 0; step -= 7) {
+                assertArrayEquals(states.get(step), trajectory.getState(step), "step " + step);
+            }
+        }
+    }
+
+    @Test
+    void recordedIterateMatchesPlainIterate() throws IOException {
+        Path path = dir.resolve("run.traj");
+        BooleanNetwork network = new BooleanNetwork().setNetwork(topology).setRules(rules).setState(state);
+        BooleanNetwork reference = new BooleanNetwork().setNetwork(topology).setRules(rules).setState(state);
+
+        try (TrajectoryRecorder recorder = new TrajectoryRecorder(path, N)) {
+            network.iterate(30, recorder);
+        }
+
+        try (Trajectory trajectory = Trajectory.open(path)) {
+            assertEquals(31, trajectory.getFrames());
+
+            for (int step = 0; step <= 30; step++) {
+                assertArrayEquals(reference.getState(), trajectory.getState(step), "step " + step);
+                reference.update();
+            }
+        }
+    }
+
+    /* MATLAB text files */
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void parsersMatchLineBasedReaders() throws IOException {
+        Path topologyFile = dir.resolve("topology.txt");
+        Path rulesFile = dir.resolve("rules.txt");
+
+        //Variable in-degree, so rule columns end at different lines
+        int[][] varied = Networks.randomTopology(N, 2.0, 4, rand);
+        byte[][] variedRules = new byte[N][];
+        int[][] inputs = new int[N][];
+
+        for (int i = 0; i < N; i++) {
+            inputs[i] = Arrays.stream(varied[i]).filter(j -> j >= 0).toArray();
+            variedRules[i] = Networks.randomRule(inputs[i].length, rand);
+        }
+
+        NetworkIO.writeTopology(inputs, topologyFile.toString());
+        NetworkIO.writeRules(variedRules, rulesFile);
+
+        int[][] parsedTopology = NetworkIO.parseTopology(topologyFile);
+        byte[][] parsedRules = NetworkIO.parseRules(rulesFile);
+
+        assertArrayEquals(inputs, parsedTopology);
+        assertArrayEquals(variedRules, parsedRules);
+        assertArrayEquals(parsedTopology, NetworkIO.readTopology(topologyFile));
+        assertArrayEquals(parsedRules, NetworkIO.readRules(rulesFile));
+
+        //The String line reading the files were first read with
+        List<String> topologyLines = Files.readAllLines(topologyFile);
+        List<String> ruleLines = Files.readAllLines(rulesFile);
+
+        for (int i = 0; i < N; i++) {
+            String line = topologyLines.get(i).trim();
+            int[] row = line.isEmpty() ? new int[0]
+                    : Arrays.stream(line.split("\\s+")).mapToInt(v -> Integer.parseInt(v) - 1).toArray();
+
+            assertArrayEquals(row, parsedTopology[i], "topology of node " + i);
+            assertArrayEquals(NetworkIO.getrule(ruleLines, 2 * i), parsedRules[i], "rule of node " + i);
+        }
+    }
+
+    @Test
+    void parserReportsPositionOfBadInput() throws IOException {
+        Path path = dir.resolve("topology.txt");
+        Files.writeString(path, "1 2\n3 x\n");
+
+        IOException e = assertThrows(IOException.class, () -> NetworkIO.parseTopology(path));
+        assertTrue(e.getMessage().contains(":2:"), e.getMessage());
+    }
+}
@@ -0,0 +1,106 @@
+package NetworkUtils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//Packed table kernels against flipping each input of each table entry
+class SensitivityTest {
+
+    static final double EPSILON = 1e-12;
+
+    //Fraction of entries whose output changes when input i (the first is the most significant bit) flips
+    static double[] activities(byte[] table, int k) {
+        double[] activity = new double[k];
+
+        for (int i = 0; i < k; i++) {
+            int bit = 1 << (k - 1 - i);
+            int changed = 0;
+
+            for (int x = 0; x < 1 << k; x++) {
+                if (table[x] != table[x ^ bit]) changed++;
+            }
+
+            activity[i] = (double) changed / (1 << k);
+        }
+
+        return activity;
+    }
+
+    @Test
+    void knownRules() {
+        byte[] and = {0, 0, 0, 1};
+        byte[] xor = {0, 1, 1, 0};
+        byte[] first = {0, 0, 1, 1};
+
+        assertEquals(1.0, Sensitivity.getSensitivity(new Rule(and, 2), 2), EPSILON);
+        assertEquals(0.25, Sensitivity.getBias(new Rule(and, 2), 2), EPSILON);
+        assertEquals(2.0, Sensitivity.getSensitivity(new Rule(xor, 2), 2), EPSILON);
+        assertArrayEquals(new double[]{1, 0}, Sensitivity.getActivities(new Rule(first, 2), 2), EPSILON);
+        assertEquals(1.0, Sensitivity.expectedSensitivity(0.5, 2), EPSILON);
+    }
+
+    @Test
+    void randomRulesMatchBruteForce() {
+        SplittableRandom rand = new SplittableRandom(23);
+
+        //Up to 9 inputs, so tables fill one word partly, exactly and across several words
+        for (int k = 1; k <= 9; k++) {
+            for (int trial = 0; trial < 20; trial++) {
+                byte[] table = Networks.randomRule(k, rand);
+                double[] expected = activities(table, k);
+
+                double sum = 0, ones = 0;
+                for (double a : expected) sum += a;
+                for (byte b : table) ones += b;
+
+                PackedRule packed = PackedRule.fromBytes(table);
+                Rule rule = new Rule(table, k);
+
+                assertArrayEquals(expected, Sensitivity.getActivities(rule, k), EPSILON, "k = " + k);
+                assertArrayEquals(expected, packed.getActivities(), EPSILON, "k = " + k);
+                assertEquals(sum, Sensitivity.getSensitivity(rule, k), EPSILON, "k = " + k);
+                assertEquals(sum, packed.getSensitivity(), EPSILON, "k = " + k);
+                assertEquals(ones / table.length, Sensitivity.getBias(rule, k), EPSILON, "k = " + k);
+                assertEquals(ones / table.length, packed.getBias(), EPSILON, "k = " + k);
+            }
+        }
+    }
+
+    @Test
+    void networkAnalysisAgreesAcrossForms() {
+        SplittableRandom rand = new SplittableRandom(24);
+        int n = 10000;
+        int[][] topology = Networks.randomTopology(n, 2.5, 7, rand);
+        byte[][] rules = Networks.randomRulesetByte(n, 7, rand);
+
+        BooleanNetwork network = new BooleanNetwork().setNetwork(topology).setRules(rules);
+        Sensitivity fromNodes = new Sensitivity(network.getNetwork());
+        Sensitivity compiled = new Sensitivity(new NetworkDefinition(topology, rules));
+        Sensitivity interned = new Sensitivity(network.internRules().getNetwork());
+
+        double total = 0;
+
+        for (int i = 0; i < n; i++) {
+            int k = fromNodes.getDegree(i);
+            double expected = 0;
+            for (double a : activities(rules[i], k)) expected += a;
+
+            assertEquals(expected, fromNodes.getSensitivity(i), EPSILON, "node " + i);
+            assertEquals(expected, compiled.getSensitivity(i), EPSILON, "node " + i);
+            assertEquals(expected, interned.getSensitivity(i), EPSILON, "node " + i);
+            assertEquals(fromNodes.getBias(i), compiled.getBias(i), EPSILON, "node " + i);
+            total += expected;
+        }
+
+        assertEquals(total / n, compiled.getMeanSensitivity(), 1e-9);
+        assertEquals(compiled.getMeanSensitivity(), fromNodes.getMeanSensitivity(), EPSILON);
+        assertEquals(2.5, compiled.getMeanDegree(), 0.01);
+
+        //Random rules have bias 1/2, so the mean sensitivity is close to K / 2
+        assertEquals(compiled.getExpectedSensitivity(), compiled.getMeanSensitivity(), 0.05);
+    }
+}
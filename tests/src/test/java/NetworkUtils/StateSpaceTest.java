@@ -0,0 +1,119 @@
+package NetworkUtils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//Labels, basins and depths from the parallel exploration against following every state's trajectory
+class StateSpaceTest {
+
+    //Attractor of every state by its smallest cycle state, with the steps taken to reach the cycle
+    static final class BruteForce {
+        final int[] attractor;
+        final int[] distance;
+        final Map<Integer, Integer> periods = new HashMap<>();
+
+        BruteForce(StateSpace space, int size) {
+            int states = 1 << size;
+            attractor = new int[states];
+            distance = new int[states];
+
+            for (int s = 0; s < states; s++) {
+                Map<Integer, Integer> seen = new HashMap<>();
+                int state = s;
+
+                for (int t = 0; !seen.containsKey(state); t++) {
+                    seen.put(state, t);
+                    state = space.next(state);
+                }
+
+                int entry = seen.get(state);
+                int smallest = state, period = 0;
+
+                for (int c = state; period == 0 || c != state; c = space.next(c)) {
+                    smallest = Math.min(smallest, c);
+                    period++;
+                }
+
+                attractor[s] = smallest;
+                distance[s] = entry;
+                periods.put(smallest, period);
+            }
+        }
+    }
+
+    static void check(int size, int k, long seed, int parallelism) {
+        SplittableRandom rand = new SplittableRandom(seed);
+        NetworkDefinition network = new NetworkDefinition(
+                Networks.randomTopology(size, k, rand), Networks.randomRulesetByte(size, k, rand));
+
+        StateSpace space = new StateSpace(network).explore(parallelism);
+        BruteForce expected = new BruteForce(space, size);
+
+        assertEquals(expected.periods.size(), space.getAttractorCount(), "attractor count");
+
+        int count = space.getAttractorCount();
+        int[] smallest = new int[count];
+        long[] basins = new long[count];
+        int[] depths = new int[count];
+
+        for (int a = 0; a < count; a++) {
+            int[] cycle = space.getAttractorStates(a);
+            smallest[a] = Arrays.stream(cycle).min().getAsInt();
+            assertEquals(expected.periods.get(smallest[a]), space.getPeriod(a), "period of attractor " + a);
+        }
+
+        for (int s = 0; s < 1 << size; s++) {
+            int a = space.getAttractor(s);
+
+            assertEquals(expected.attractor[s], smallest[a], "attractor of state " + s);
+            assertEquals(expected.distance[s] == 0, space.isOnAttractor(s), "state " + s + " on the cycle");
+
+            basins[a]++;
+            depths[a] = Math.max(depths[a], expected.distance[s]);
+        }
+
+        for (int a = 0; a < count; a++) {
+            assertEquals(basins[a], space.getBasinSize(a), "basin of attractor " + a);
+            assertEquals(depths[a], space.getDepth(a), "depth of attractor " + a);
+        }
+    }
+
+    @Test
+    void orderedNetworks() {
+        for (long seed = 0; seed < 5; seed++) {
+            check(12, 1, seed, 4);
+        }
+    }
+
+    @Test
+    void criticalNetworks() {
+        for (long seed = 0; seed < 5; seed++) {
+            check(14, 2, seed, 4);
+        }
+    }
+
+    @Test
+    void chaoticNetworks() {
+        for (long seed = 0; seed < 5; seed++) {
+            check(12, 4, seed, 4);
+        }
+    }
+
+    @Test
+    void singleThreadedExploration() {
+        check(12, 2, 7, 1);
+    }
+
+    @Test
+    void encodeRoundTrips() {
+        int[] state = {1, 0, 1, 1, 0, 0, 1};
+        assertArrayEquals(state, StateSpace.decode(StateSpace.encode(state), state.length));
+    }
+}
@@ -0,0 +1,67 @@
+package NetworkUtils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+//Every node is its own single input with rule NOT, so each update of a node flips it exactly once
+class UpdateSchemeTest {
+
+    static final int N = 1000;
+
+    static int[][] selfLoops() {
+        int[][] topology = new int[N][1];
+        for (int i = 0; i < N; i++) {
+            topology[i][0] = i;
+        }
+        return topology;
+    }
+
+    static byte[][] negations() {
+        byte[][] rules = new byte[N][];
+        for (int i = 0; i < N; i++) {
+            rules[i] = new byte[]{1, 0};
+        }
+        return rules;
+    }
+
+    static int[] flipped(int[] state) {
+        int[] result = new int[state.length];
+        for (int i = 0; i < state.length; i++) {
+            result[i] = 1 - state[i];
+        }
+        return result;
+    }
+
+    @Test
+    void randomOrderUpdatesEveryNodeOnceAfterAsyncSweeps() {
+        BooleanNetwork network = new BooleanNetwork()
+                .setNetwork(selfLoops())
+                .setRules(negations())
+                .setState(Networks.randomState(N));
+
+        for (int sweep = 0; sweep < 20; sweep++) {
+            network.asyncSweep();
+
+            int[] before = network.getState();
+            network.randomOrderUpdate();
+
+            assertArrayEquals(flipped(before), network.getState(), "sweep " + sweep);
+        }
+    }
+
+    @Test
+    void compiledRandomOrderUpdatesEveryNodeOnceAfterAsyncSweeps() {
+        CompiledNetwork network = new NetworkDefinition(selfLoops(), negations()).newHandle()
+                .setState(Networks.randomState(N));
+
+        for (int sweep = 0; sweep < 20; sweep++) {
+            network.asyncSweep();
+
+            int[] before = network.getState();
+            network.randomOrderUpdate();
+
+            assertArrayEquals(flipped(before), network.getState(), "sweep " + sweep);
+        }
+    }
+}